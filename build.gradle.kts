@@ -1,5 +1,6 @@
 plugins {
     java
+    id("me.champeau.jmh") version "0.7.2"
 }
 
 group = "com.eclipsestudios"
@@ -20,6 +21,51 @@ dependencies {
     compileOnly("io.papermc.paper:paper-api:1.21.4-R0.1-SNAPSHOT")
     compileOnly("me.clip:placeholderapi:2.11.5")
     compileOnly("com.discordsrv:discordsrv:1.28.0")
+
+    // Benchmarks run outside a server, so they need the APIs on their runtime classpath
+    jmh("io.papermc.paper:paper-api:1.21.4-R0.1-SNAPSHOT")
+    jmh("me.clip:placeholderapi:2.11.5")
+    jmh("com.discordsrv:discordsrv:1.28.0")
+
+    testImplementation("io.papermc.paper:paper-api:1.21.4-R0.1-SNAPSHOT")
+    testImplementation("me.clip:placeholderapi:2.11.5")
+    testImplementation("com.discordsrv:discordsrv:1.28.0")
+    // Boots the plugin on a simulated server for the load test
+    testImplementation("org.mockbukkit.mockbukkit:mockbukkit-v1.21:4.45.0")
+    testImplementation("org.mockito:mockito-core:5.14.2")
+    testImplementation(platform("org.junit:junit-bom:5.11.4"))
+    testImplementation("org.junit.jupiter:junit-jupiter")
+    testRuntimeOnly("org.junit.platform:junit-platform-launcher")
+}
+
+// ./gradlew jmh (filter with -PjmhIncludes=<regex>)
+jmh {
+    fork.set(1)
+    warmupIterations.set(3)
+    iterations.set(5)
+    profilers.add("gc")
+    resultFormat.set("JSON")
+    if (project.hasProperty("jmhIncludes")) {
+        includes.add(project.property("jmhIncludes").toString())
+    }
+}
+
+tasks.test {
+    useJUnitPlatform {
+        // Timing and heap budgets depend on the machine
+        excludeTags("load")
+    }
+}
+
+// ./gradlew loadTest
+val loadTest by tasks.registering(Test::class) {
+    description = "Runs the tick time and heap budget checks of the load test"
+    group = "verification"
+    testClassesDirs = sourceSets.test.get().output.classesDirs
+    classpath = sourceSets.test.get().runtimeClasspath
+    useJUnitPlatform {
+        includeTags("load")
+    }
 }
 
 tasks.processResources {
@@ -0,0 +1,177 @@
+package com.eclipsestudios.announcements.benchmark;
+
+import org.bukkit.World;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.entity.Player;
+import org.bukkit.plugin.Plugin;
+
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.logging.Logger;
+
+/**
+ * Minimal stand-ins for the server objects the announcement hot path touches
+ * Players, worlds and the plugin are interface proxies: the handful of getters the plugin
+ * reads return fixed values, and anything that would send a packet is counted instead
+ */
+public final class FakeServer {
+
+    private static final Logger LOGGER = Logger.getLogger("EasyAnnouncements-Benchmark");
+
+    private final List<World> worlds = new ArrayList<>();
+    private final List<Player> players = new ArrayList<>();
+    private final Map<String, List<Player>> playersByWorld = new HashMap<>();
+    private long packets;
+
+    /**
+     * Create a server with players spread round-robin over the given number of worlds
+     */
+    public FakeServer(int playerCount, int worldCount) {
+        for (int i = 0; i < worldCount; i++) {
+            worlds.add(world("world_" + i));
+        }
+        for (int i = 0; i < playerCount; i++) {
+            World world = worlds.get(i % worldCount);
+            Player player = player("Player" + i, world);
+            players.add(player);
+            playersByWorld.get(world.getName()).add(player);
+        }
+    }
+
+    public List<Player> players() {
+        return players;
+    }
+
+    public List<World> worlds() {
+        return worlds;
+    }
+
+    /**
+     * Packets "sent" to players since creation
+     */
+    public long packets() {
+        return packets;
+    }
+
+    public Logger logger() {
+        return LOGGER;
+    }
+
+    /**
+     * A plugin that is always enabled
+     */
+    public Plugin plugin() {
+        return proxy(Plugin.class, (proxy, method, args) -> switch (method.getName()) {
+            case "isEnabled" -> true;
+            case "getLogger" -> LOGGER;
+            case "getName" -> "EasyAnnouncements";
+            default -> objectMethod(proxy, method, args, "FakePlugin");
+        });
+    }
+
+    /**
+     * Load a bundled config file (config.yml, discord.yml) as the server would on first start
+     */
+    public static YamlConfiguration bundledConfig(String name) {
+        InputStream stream = FakeServer.class.getClassLoader().getResourceAsStream(name);
+        if (stream == null) {
+            throw new IllegalStateException("Missing bundled resource " + name);
+        }
+        return YamlConfiguration.loadConfiguration(new InputStreamReader(stream, StandardCharsets.UTF_8));
+    }
+
+    private World world(String name) {
+        UUID id = UUID.nameUUIDFromBytes(name.getBytes(StandardCharsets.UTF_8));
+        List<Player> residents = new ArrayList<>();
+        playersByWorld.put(name, residents);
+        return proxy(World.class, (proxy, method, args) -> switch (method.getName()) {
+            case "getName" -> name;
+            case "getUID" -> id;
+            case "getPlayers" -> new ArrayList<>(residents);
+            default -> objectMethod(proxy, method, args, "FakeWorld[" + name + "]");
+        });
+    }
+
+    private Player player(String name, World world) {
+        UUID id = UUID.nameUUIDFromBytes(name.getBytes(StandardCharsets.UTF_8));
+        return proxy(Player.class, (proxy, method, args) -> {
+            String methodName = method.getName();
+            switch (methodName) {
+                case "getName", "getDisplayName" -> {
+                    return name;
+                }
+                case "getUniqueId" -> {
+                    return id;
+                }
+                case "getWorld" -> {
+                    return world;
+                }
+                case "isOnline" -> {
+                    return true;
+                }
+                default -> {
+                }
+            }
+            if (methodName.startsWith("show") || methodName.startsWith("hide")
+                || methodName.startsWith("send") || methodName.startsWith("play")) {
+                packets++;
+                return null;
+            }
+            return objectMethod(proxy, method, args, "FakePlayer[" + name + "]");
+        });
+    }
+
+    /**
+     * Identity equals/hashCode/toString, zero values for everything else
+     */
+    private static Object objectMethod(Object proxy, Method method, Object[] args, String description) {
+        return switch (method.getName()) {
+            case "equals" -> args != null && args.length == 1 && proxy == args[0];
+            case "hashCode" -> System.identityHashCode(proxy);
+            case "toString" -> description;
+            default -> zero(method.getReturnType());
+        };
+    }
+
+    private static Object zero(Class<?> type) {
+        if (!type.isPrimitive() || type == void.class) {
+            return null;
+        }
+        if (type == boolean.class) {
+            return false;
+        }
+        if (type == char.class) {
+            return '\0';
+        }
+        if (type == long.class) {
+            return 0L;
+        }
+        if (type == float.class) {
+            return 0.0f;
+        }
+        if (type == double.class) {
+            return 0.0d;
+        }
+        if (type == byte.class) {
+            return (byte) 0;
+        }
+        if (type == short.class) {
+            return (short) 0;
+        }
+        return 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return (T) Proxy.newProxyInstance(FakeServer.class.getClassLoader(), new Class<?>[]{type}, handler);
+    }
+}
@@ -0,0 +1,58 @@
+package com.eclipsestudios.announcements.benchmark;
+
+import me.clip.placeholderapi.expansion.PlaceholderExpansion;
+import me.clip.placeholderapi.replacer.CharsReplacer;
+import me.clip.placeholderapi.replacer.Replacer;
+import org.bukkit.OfflinePlayer;
+import org.bukkit.entity.Player;
+
+/**
+ * PlaceholderAPI without a running server: PlaceholderAPI's own %identifier_params% parser
+ * resolves placeholders against one registered stub expansion
+ * The "bench" expansion answers %bench_name% and %bench_rank% with per-player values, so every
+ * recipient gets different text just like with a real expansion
+ */
+public final class StubPlaceholders {
+
+    public static final String IDENTIFIER = "bench";
+
+    private static final Replacer REPLACER = new CharsReplacer(Replacer.Closure.PERCENT);
+    private static final PlaceholderExpansion EXPANSION = new Expansion();
+
+    private StubPlaceholders() {
+    }
+
+    /**
+     * Resolve placeholders for a viewer, same signature as PlaceholderAPI.setPlaceholders
+     */
+    public static String setPlaceholders(Player player, String text) {
+        return REPLACER.apply(text, player, identifier -> identifier.equals(IDENTIFIER) ? EXPANSION : null);
+    }
+
+    private static final class Expansion extends PlaceholderExpansion {
+
+        @Override
+        public String getIdentifier() {
+            return IDENTIFIER;
+        }
+
+        @Override
+        public String getAuthor() {
+            return "EclipseStudios";
+        }
+
+        @Override
+        public String getVersion() {
+            return "1.0.0";
+        }
+
+        @Override
+        public String onRequest(OfflinePlayer player, String params) {
+            return switch (params) {
+                case "name" -> player.getName();
+                case "rank" -> (player.getUniqueId().hashCode() & 1) == 0 ? "&aMember" : "&6VIP";
+                default -> null;
+            };
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.eclipsestudios.announcements.benchmark;
+
+import com.eclipsestudios.announcements.scheduler.TaskHandle;
+import com.eclipsestudios.announcements.scheduler.TaskScheduler;
+import org.bukkit.entity.Player;
+
+import java.util.Comparator;
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Consumer;
+
+/**
+ * A single-threaded stand-in for the server tick loop
+ * The thread calling tick() is the "main thread": work handed over from other threads
+ * runs at the start of the next tick, delayed and repeating tasks run on their due tick
+ */
+public final class TickingTaskScheduler implements TaskScheduler {
+
+    private final PriorityQueue<ScheduledTask> scheduled = new PriorityQueue<>(
+        Comparator.comparingLong((ScheduledTask task) -> task.dueTick).thenComparingLong(task -> task.sequence));
+    private final Queue<Runnable> handoff = new ConcurrentLinkedQueue<>();
+    private volatile Thread mainThread;
+    private long currentTick;
+    private long sequence;
+
+    /**
+     * Run one server tick on the calling thread
+     */
+    public void tick() {
+        mainThread = Thread.currentThread();
+        currentTick++;
+
+        Runnable handed;
+        while ((handed = handoff.poll()) != null) {
+            handed.run();
+        }
+
+        while (!scheduled.isEmpty() && scheduled.peek().dueTick <= currentTick) {
+            ScheduledTask task = scheduled.poll();
+            if (task.cancelled) {
+                continue;
+            }
+            task.body.accept(task);
+            if (task.periodTicks > 0 && !task.cancelled) {
+                task.dueTick = currentTick + task.periodTicks;
+                scheduled.add(task);
+            }
+        }
+    }
+
+    public long currentTick() {
+        return currentTick;
+    }
+
+    /**
+     * Delayed or repeating tasks still waiting to run (cancelled ones excluded)
+     */
+    public int pendingTasks() {
+        int pending = 0;
+        for (ScheduledTask task : scheduled) {
+            if (!task.cancelled) {
+                pending++;
+            }
+        }
+        return pending + handoff.size();
+    }
+
+    private TaskHandle schedule(Consumer<TaskHandle> body, long delayTicks, long periodTicks) {
+        ScheduledTask task = new ScheduledTask(body, currentTick + Math.max(1, delayTicks), periodTicks, sequence++);
+        scheduled.add(task);
+        return task;
+    }
+
+    @Override
+    public boolean isRegionThreaded() {
+        return false;
+    }
+
+    @Override
+    public void runGlobal(Runnable task) {
+        if (Thread.currentThread() == mainThread) {
+            task.run();
+        } else {
+            handoff.add(task);
+        }
+    }
+
+    @Override
+    public TaskHandle runGlobalLater(Runnable task, long delayTicks) {
+        return schedule(handle -> task.run(), delayTicks, 0);
+    }
+
+    @Override
+    public TaskHandle runGlobalTimer(Consumer<TaskHandle> task, long delayTicks, long periodTicks) {
+        return schedule(task, delayTicks, Math.max(1, periodTicks));
+    }
+
+    @Override
+    public void runForPlayer(Player player, Runnable task) {
+        runGlobal(task);
+    }
+
+    @Override
+    public void runAsync(Runnable task) {
+        task.run();
+    }
+
+    private static final class ScheduledTask implements TaskHandle {
+
+        private final Consumer<TaskHandle> body;
+        private final long periodTicks;
+        private final long sequence;
+        private long dueTick;
+        private boolean cancelled;
+
+        ScheduledTask(Consumer<TaskHandle> body, long dueTick, long periodTicks, long sequence) {
+            this.body = body;
+            this.dueTick = dueTick;
+            this.periodTicks = periodTicks;
+            this.sequence = sequence;
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+        }
+    }
+}
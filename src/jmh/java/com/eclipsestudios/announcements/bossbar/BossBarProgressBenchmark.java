@@ -0,0 +1,49 @@
+package com.eclipsestudios.announcements.bossbar;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Boss bar animation cost: compiling the frame table (once per reload)
+ * and playing every frame of it (per bar group while it animates)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class BossBarProgressBenchmark {
+
+    // 10 seconds at one update per tick
+    private static final int FRAMES = 200;
+
+    @Param({"FILL", "PULSE", "EASE_IN_OUT", "COUNTDOWN"})
+    public String type;
+
+    private BossBarAnimation animation;
+
+    @Setup
+    public void setup() {
+        animation = BossBarAnimation.builtIn(type, FRAMES, 10);
+    }
+
+    @Benchmark
+    public BossBarAnimation compile() {
+        return BossBarAnimation.builtIn(type, FRAMES, 10);
+    }
+
+    @Benchmark
+    public float fullAnimation() {
+        float sum = 0;
+        for (int frame = 0; frame < animation.frameCount(); frame++) {
+            sum += animation.progress(frame);
+        }
+        return sum;
+    }
+}
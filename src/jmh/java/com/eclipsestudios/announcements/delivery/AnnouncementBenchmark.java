@@ -0,0 +1,99 @@
+package com.eclipsestudios.announcements.delivery;
+
+import com.eclipsestudios.announcements.benchmark.FakeServer;
+import com.eclipsestudios.announcements.benchmark.StubPlaceholders;
+import com.eclipsestudios.announcements.benchmark.TickingTaskScheduler;
+import com.eclipsestudios.announcements.bossbar.BossBarManager;
+import com.eclipsestudios.announcements.config.PluginSettings;
+import com.eclipsestudios.announcements.metrics.AnnouncementMetrics;
+import com.eclipsestudios.announcements.template.AnnouncementRenderer;
+import com.eclipsestudios.announcements.template.TemplateContext;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.entity.Player;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Title, chat and boss bar announcement from prepare to the last packet
+ * "placeholders" switches every line to per-viewer PlaceholderAPI placeholders and %world%, resolved
+ * per recipient by PlaceholderAPI's parser against a stub expansion (see {@link StubPlaceholders})
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class AnnouncementBenchmark {
+
+    @Param({"1", "100", "1000", "5000"})
+    public int recipients;
+
+    @Param({"false", "true"})
+    public boolean placeholders;
+
+    // One of all, title, chat, bossbar (override with -p channels=title to isolate a channel)
+    @Param({"all"})
+    public String channels;
+
+    private FakeServer server;
+    private TickingTaskScheduler scheduler;
+    private PluginSettings settings;
+    private AnnouncementRenderer renderer;
+    private AnnouncementDispatcher dispatcher;
+    private TemplateContext context;
+    private List<Player> targets;
+
+    @Setup
+    public void setup() {
+        server = new FakeServer(recipients, 4);
+        scheduler = new TickingTaskScheduler();
+
+        YamlConfiguration config = FakeServer.bundledConfig("config.yml");
+        config.set("title.enabled", channels.equals("all") || channels.equals("title"));
+        config.set("chat.enabled", channels.equals("all") || channels.equals("chat"));
+        config.set("bossbar.enabled", channels.equals("all") || channels.equals("bossbar"));
+        // Sound lookup goes through the server registry
+        config.set("sound.enabled", false);
+        if (placeholders) {
+            config.set("title.subtitle", "&7%message% &8(%bench_name%)");
+            config.set("chat.format.message", "%bench_rank% &f%message% &8[%world%]");
+            config.set("bossbar.message", "&6&l✦ &f%message% &7for %bench_name% &6&l✦");
+        }
+        settings = PluginSettings.compile(config, server.logger());
+
+        AnnouncementMetrics metrics = new AnnouncementMetrics();
+        renderer = new AnnouncementRenderer(placeholders ? StubPlaceholders::setPlaceholders : null, metrics);
+        dispatcher = new AnnouncementDispatcher(server.plugin(), scheduler, new BossBarManager(scheduler, () -> 0.0), metrics);
+        targets = server.players();
+        context = new TemplateContext("Server restart in 5 minutes!", "Console", targets.size());
+    }
+
+    /**
+     * Shared-content preparation only (once per announcement)
+     */
+    @Benchmark
+    public PreparedAnnouncement prepare() {
+        renderer.beginAnnouncement(settings.componentCache());
+        return PreparedAnnouncement.prepare(renderer, settings, context);
+    }
+
+    /**
+     * Full announcement: prepare, render and deliver to every recipient, then one server tick
+     */
+    @Benchmark
+    public long announce() {
+        renderer.beginAnnouncement(settings.componentCache());
+        PreparedAnnouncement announcement = PreparedAnnouncement.prepare(renderer, settings, context);
+        dispatcher.dispatch(announcement, targets, null);
+        // One tick so the boss bar ticker picks up the new bars
+        scheduler.tick();
+        return server.packets();
+    }
+}
@@ -0,0 +1,73 @@
+package com.eclipsestudios.announcements.discord;
+
+import com.eclipsestudios.announcements.benchmark.FakeServer;
+import com.eclipsestudios.announcements.config.DiscordSettings;
+import github.scarsz.discordsrv.dependencies.jda.api.entities.MessageEmbed;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.entity.Player;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Building the Discord embed for one announcement from the bundled discord.yml prototype
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class EmbedBenchmark {
+
+    @Param({"false", "true"})
+    public boolean playerSender;
+
+    private DiscordSettings.EmbedSettings settings;
+    private EmbedPrototype prototype;
+    private WebhookEmbedPrototype webhookPrototype;
+    private Player sender;
+
+    @Setup
+    public void setup() {
+        FakeServer server = new FakeServer(1, 1);
+        YamlConfiguration config = FakeServer.bundledConfig("discord.yml");
+        config.set("embed.enabled", true);
+        settings = DiscordSettings.compile(config, server.logger()).embed();
+        prototype = EmbedPrototype.compile(settings);
+        webhookPrototype = WebhookEmbedPrototype.compile(settings);
+        sender = playerSender ? server.players().get(0) : null;
+    }
+
+    /**
+     * Per send: render the announcement parts, copy the prototype and fill them in
+     */
+    @Benchmark
+    public MessageEmbed buildEmbed() {
+        return prototype.fill(content()).build();
+    }
+
+    /**
+     * Per send, webhook transport: append the announcement parts to the serialized prototype
+     */
+    @Benchmark
+    public WebhookEmbed buildWebhookEmbed() {
+        return webhookPrototype.fill(content());
+    }
+
+    /**
+     * Once per reload: build the prototype from the compiled settings
+     */
+    @Benchmark
+    public EmbedPrototype compilePrototype() {
+        return EmbedPrototype.compile(settings);
+    }
+
+    private EmbedContent content() {
+        return EmbedContent.render(settings, "Server restart in 5 minutes!", sender, 250);
+    }
+}
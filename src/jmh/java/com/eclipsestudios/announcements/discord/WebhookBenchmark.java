@@ -0,0 +1,136 @@
+package com.eclipsestudios.announcements.discord;
+
+import com.eclipsestudios.announcements.benchmark.FakeServer;
+import com.eclipsestudios.announcements.config.DiscordSettings;
+import com.eclipsestudios.announcements.metrics.AnnouncementMetrics;
+import com.sun.net.httpserver.HttpServer;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A burst of announcements through the webhook transport to a local stand-in for Discord
+ * The stand-in answers 204 like Discord, or 429 with a short Retry-After for a share of requests,
+ * so coalescing, keep-alive and the rate limit handling are all exercised. Lost announcements fail the run
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 20)
+public class WebhookBenchmark {
+
+    private static final long TIMEOUT_NANOS = TimeUnit.SECONDS.toNanos(30);
+
+    @Param({"1", "50"})
+    public int announcements;
+
+    @Param({"0", "10"})
+    public int rateLimitedPercent;
+
+    private HttpServer server;
+    private FakeServer fakeServer;
+    private ExecutorService serverExecutor;
+    private ScheduledExecutorService executor;
+    private HttpClient client;
+    private DiscordSettings settings;
+    private WebhookEmbed embed;
+    private String url;
+
+    private AnnouncementMetrics metrics;
+    private DiscordOutbox<WebhookEmbed> outbox;
+
+    @Setup(Level.Trial)
+    public void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/api/webhooks/", exchange -> {
+            try (InputStream body = exchange.getRequestBody()) {
+                body.readAllBytes();
+            }
+            if (ThreadLocalRandom.current().nextInt(100) < rateLimitedPercent) {
+                exchange.getResponseHeaders().set("Retry-After", "0.01");
+                exchange.sendResponseHeaders(429, -1);
+            } else {
+                exchange.sendResponseHeaders(204, -1);
+            }
+            exchange.close();
+        });
+        serverExecutor = Executors.newFixedThreadPool(4);
+        server.setExecutor(serverExecutor);
+        server.start();
+        url = "http://127.0.0.1:" + server.getAddress().getPort() + "/api/webhooks/1/benchmark-token";
+
+        executor = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().daemon().factory());
+        client = WebhookTransport.createClient();
+
+        // No coalescing delay to speak of and no outbound pacing, the stand-in sets the pace
+        fakeServer = new FakeServer(1, 1);
+        YamlConfiguration config = FakeServer.bundledConfig("discord.yml");
+        config.set("embed.enabled", true);
+        config.set("discord.outbound.coalesce-window-ms", 5);
+        config.set("discord.outbound.rate-limit-messages", 1000);
+        config.set("discord.outbound.rate-limit-seconds", 1);
+        config.set("discord.outbound.max-queued", 1000);
+        settings = DiscordSettings.compile(config, fakeServer.logger());
+        embed = WebhookEmbedPrototype.compile(settings.embed())
+            .fill(EmbedContent.render(settings.embed(), "Server restart in 5 minutes!", null, 250));
+    }
+
+    @Setup(Level.Iteration)
+    public void createOutbox() {
+        metrics = new AnnouncementMetrics();
+        RequestLimiter limiter = new RequestLimiter(() -> settings.webhook().maxInFlight());
+        outbox = new DiscordOutbox<>(new WebhookTransport(URI.create(url), client, limiter, settings::webhook),
+            executor, metrics, fakeServer.logger());
+    }
+
+    @Benchmark
+    public long burst() {
+        for (int i = 0; i < announcements; i++) {
+            outbox.offer(embed, "Announcement " + i, settings.outbound());
+        }
+
+        long deadline = System.nanoTime() + TIMEOUT_NANOS;
+        while (metrics.getDiscordSent() + metrics.getDiscordFailures() < announcements) {
+            if (System.nanoTime() > deadline) {
+                throw new IllegalStateException("Only " + metrics.getDiscordSent() + " of " + announcements
+                    + " announcements delivered");
+            }
+            LockSupport.parkNanos(50_000);
+        }
+        if (metrics.getDiscordFailures() > 0) {
+            throw new IllegalStateException(metrics.getDiscordFailures() + " announcements failed");
+        }
+        return metrics.getDiscordMessages();
+    }
+
+    @TearDown(Level.Trial)
+    public void stopServer() {
+        executor.shutdownNow();
+        server.stop(0);
+        serverExecutor.shutdownNow();
+    }
+}
@@ -2,130 +2,200 @@ package com.eclipsestudios.announcements;
 
 import com.eclipsestudios.announcements.bossbar.BossBarManager;
 import com.eclipsestudios.announcements.commands.AnnouncementCommandHandler;
+import com.eclipsestudios.announcements.config.ConfigLoader;
+import com.eclipsestudios.announcements.config.ConfigWatcher;
+import com.eclipsestudios.announcements.config.DiscordSettings;
+import com.eclipsestudios.announcements.config.PluginSettings;
+import com.eclipsestudios.announcements.config.SettingsGeneration;
+import com.eclipsestudios.announcements.delivery.AnnouncementDispatcher;
+import com.eclipsestudios.announcements.delivery.AnnouncementScope;
+import com.eclipsestudios.announcements.delivery.PreparedAnnouncement;
 import com.eclipsestudios.announcements.discord.DiscordCommandHandler;
 import com.eclipsestudios.announcements.discord.DiscordManager;
+import com.eclipsestudios.announcements.metrics.AnnouncementMetrics;
+import com.eclipsestudios.announcements.metrics.AnnouncementMetrics.Stage;
+import com.eclipsestudios.announcements.scheduler.TaskScheduler;
+import com.eclipsestudios.announcements.template.AnnouncementRenderer;
+import com.eclipsestudios.announcements.template.TemplateContext;
 import github.scarsz.discordsrv.DiscordSRV;
-import me.clip.placeholderapi.PlaceholderAPI;
-import net.kyori.adventure.text.Component;
-import net.kyori.adventure.text.serializer.legacy.LegacyComponentSerializer;
-import net.kyori.adventure.title.Title;
-import org.bukkit.Bukkit;
-import org.bukkit.Sound;
+import org.bukkit.configuration.InvalidConfigurationException;
 import org.bukkit.configuration.file.FileConfiguration;
-import org.bukkit.configuration.file.YamlConfiguration;
 import org.bukkit.entity.Player;
 import org.bukkit.plugin.java.JavaPlugin;
 
-import java.io.File;
 import java.io.IOException;
-import java.io.InputStream;
-import java.nio.file.Files;
-import java.time.Duration;
 import java.util.Collection;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.Level;
 
 public final class EclipseStudiosAnnouncements extends JavaPlugin {
-
+    
     private static EclipseStudiosAnnouncements instance;
     private boolean placeholderAPIEnabled = false;
     private boolean discordSRVEnabled = false;
     
-    // Config files
-    private FileConfiguration discordConfig;
-    private File discordConfigFile;
+    // Compiled settings of both config files (replaced atomically on reload)
+    private volatile SettingsGeneration generation;
+    private final AtomicLong generations = new AtomicLong();
+    private ConfigLoader configLoader;
+    private ConfigWatcher configWatcher;
     
     // Managers
+    private TaskScheduler taskScheduler;
     private DiscordManager discordManager;
     private DiscordCommandHandler discordCommandHandler;
     private BossBarManager bossBarManager;
-
+    private AnnouncementRenderer renderer;
+    private AnnouncementDispatcher dispatcher;
+    private final AnnouncementMetrics metrics = new AnnouncementMetrics();
+    
     @Override
     public void onEnable() {
         instance = this;
         
         // Load configs
-        saveDefaultConfig();
-        loadDiscordConfig();
+        configLoader = new ConfigLoader(getDataFolder(), this::getResource, getLogger());
+        long firstGeneration = generations.incrementAndGet();
+        try {
+            generation = configLoader.load(firstGeneration);
+        } catch (IOException | InvalidConfigurationException e) {
+            getLogger().log(Level.SEVERE, "Could not load the configuration, using defaults: " + e.getMessage());
+            generation = configLoader.defaults(firstGeneration);
+        }
         
         // Initialize managers
-        bossBarManager = new BossBarManager(this);
-
+        taskScheduler = TaskScheduler.create(this);
+        if (taskScheduler.isRegionThreaded()) {
+            getLogger().info("Folia detected! Using region schedulers.");
+        }
+        bossBarManager = new BossBarManager(taskScheduler, () -> getServer().getAverageTickTime());
+        getServer().getPluginManager().registerEvents(bossBarManager, this);
+        
         // Check for PlaceholderAPI
         if (getServer().getPluginManager().getPlugin("PlaceholderAPI") != null) {
             placeholderAPIEnabled = true;
             getLogger().info("PlaceholderAPI found! Placeholder support enabled.");
         }
-
+        renderer = new AnnouncementRenderer(placeholderAPIEnabled, metrics);
+        dispatcher = new AnnouncementDispatcher(this, taskScheduler, bossBarManager, metrics);
+        metrics.registerMBeans(renderer.getCache(), getLogger());
+        
         // Check for DiscordSRV
         if (getServer().getPluginManager().getPlugin("DiscordSRV") != null) {
             discordSRVEnabled = true;
             getLogger().info("DiscordSRV found! Discord integration enabled.");
             
             // Initialize Discord features
-            discordManager = new DiscordManager(this, discordConfig);
-            discordCommandHandler = new DiscordCommandHandler(this, discordConfig);
+            discordCommandHandler = new DiscordCommandHandler(this);
             
             // Register Discord command handler (delayed to ensure DiscordSRV is ready)
-            Bukkit.getScheduler().runTaskLater(this, () -> {
+            taskScheduler.runGlobalLater(() -> {
                 discordCommandHandler.registerCommand();
             }, 40L); // 2 second delay
         }
-
+        
+        // Webhook channels work without DiscordSRV
+        discordManager = new DiscordManager(this, discordSRVEnabled);
+        
         registerCommands();
-
+        updateConfigWatcher(generation.settings().reload());
+        
         getLogger().info("Easy Announcements enabled. Plugin by Sketch494. Eciipse Studios™");
     }
-
+    
     @Override
     public void onDisable() {
+        // Stop automatic reloads first, they would schedule work on a disabled plugin
+        closeConfigWatcher();
+        
         // Clean up boss bars
         if (bossBarManager != null) {
             bossBarManager.cleanup();
         }
         
+        // Stop async placeholder rendering
+        if (dispatcher != null) {
+            dispatcher.shutdown();
+        }
+        
+        // Hand queued Discord announcements to JDA before DiscordSRV goes away
+        if (discordManager != null) {
+            discordManager.shutdown();
+        }
+        
+        metrics.unregisterMBeans();
+        
         getLogger().info("Easy Announcements disabled.");
     }
-
+    
     /**
-     * Load discord.yml configuration
+     * Reload both config files
+     * Parsing and compiling happen off the main thread, the new generation then replaces the current one
+     * in a single step. Announcements already being delivered finish with the settings they started with
+     * @return Completes with the new generation, or exceptionally if a file couldn't be read
      */
-    private void loadDiscordConfig() {
-        discordConfigFile = new File(getDataFolder(), "discord.yml");
-        
-        if (!discordConfigFile.exists()) {
+    public CompletableFuture<SettingsGeneration> reloadConfigs() {
+        long id = generations.incrementAndGet();
+        CompletableFuture<SettingsGeneration> result = new CompletableFuture<>();
+        taskScheduler.runAsync(() -> {
             try {
-                // Create plugin data folder if it doesn't exist
-                if (!getDataFolder().exists()) {
-                    getDataFolder().mkdirs();
-                }
-                
-                // Copy default discord.yml from resources
-                InputStream inputStream = getResource("discord.yml");
-                if (inputStream != null) {
-                    Files.copy(inputStream, discordConfigFile.toPath());
-                    inputStream.close();
-                }
-            } catch (IOException e) {
-                getLogger().log(Level.SEVERE, "Could not create discord.yml", e);
+                result.complete(publish(configLoader.load(id)));
+            } catch (Exception e) {
+                getLogger().warning("Config reload failed, keeping the previous configuration: " + e.getMessage());
+                result.completeExceptionally(e);
             }
+        });
+        return result;
+    }
+    
+    /**
+     * Make a generation current and let the subsystems react to it
+     * Returns the current generation, which is a newer one if a later reload finished first
+     */
+    private synchronized SettingsGeneration publish(SettingsGeneration next) {
+        SettingsGeneration previous = generation;
+        if (previous.id() > next.id()) {
+            return previous;
         }
+        generation = next;
         
-        discordConfig = YamlConfiguration.loadConfiguration(discordConfigFile);
+        if (discordCommandHandler != null) {
+            discordCommandHandler.settingsChanged(previous.discord().commands(), next.discord().commands());
+        }
+        updateConfigWatcher(next.settings().reload());
+        return next;
     }
     
     /**
-     * Reload both config files
+     * Start, restart or stop the file watcher to match the reload settings
      */
-    public void reloadConfigs() {
-        reloadConfig();
-        loadDiscordConfig();
-        
-        // Reinitialize Discord manager with new config
-        if (discordSRVEnabled) {
-            discordManager = new DiscordManager(this, discordConfig);
+    private synchronized void updateConfigWatcher(PluginSettings.ReloadSettings reload) {
+        if (configWatcher != null
+                && (!reload.watchFiles() || configWatcher.debounceMillis() != reload.debounceMillis())) {
+            closeConfigWatcher();
+        }
+        if (reload.watchFiles() && configWatcher == null && isEnabled()) {
+            try {
+                configWatcher = ConfigWatcher.start(getDataFolder().toPath(), reload.debounceMillis(),
+                    this::reloadFromWatcher, getLogger());
+            } catch (IOException e) {
+                getLogger().warning("Could not watch the config files for changes: " + e.getMessage());
+            }
         }
     }
-
+    
+    private synchronized void closeConfigWatcher() {
+        if (configWatcher != null) {
+            configWatcher.close();
+            configWatcher = null;
+        }
+    }
+    
+    private void reloadFromWatcher() {
+        reloadConfigs().thenRun(() -> getLogger().info("Config files changed, configuration reloaded."));
+    }
+    
     private void registerCommands() {
         AnnouncementCommandHandler handler = new AnnouncementCommandHandler(this);
         
@@ -151,156 +221,97 @@ public final class EclipseStudiosAnnouncements extends JavaPlugin {
         if (reloadCmd != null) {
             reloadCmd.setExecutor(handler);
         }
+        
+        var statsCmd = getCommand("esastats");
+        if (statsCmd != null) {
+            statsCmd.setExecutor(handler);
+        }
     }
-
+    
     public static EclipseStudiosAnnouncements getInstance() {
         return instance;
     }
-
+    
     public boolean isPlaceholderAPIEnabled() {
         return placeholderAPIEnabled;
     }
-
+    
     public boolean isDiscordSRVEnabled() {
         return discordSRVEnabled;
     }
     
     public FileConfiguration getDiscordConfig() {
-        return discordConfig;
+        return generation.discordConfig();
     }
     
-    public BossBarManager getBossBarManager() {
-        return bossBarManager;
-    }
-
-    public void log(String msg) {
-        getLogger().log(Level.INFO, msg);
-    }
-
     /**
-     * Send announcement to players with title, chat, boss bar, sound, and optional Discord message
-     * @param targets Collection of players to send announcement to
-     * @param message The announcement message
-     * @param sender The player or console who sent the announcement (null for console)
+     * Current settings generation, read it once to use config.yml and discord.yml settings together
      */
-    public void sendAnnouncement(Collection<Player> targets, String message, Player sender) {
-        // Send title announcement
-        if (getConfig().getBoolean("title.enabled", true)) {
-            sendTitleAnnouncement(targets, message, sender);
-        }
-        
-        // Send chat announcement
-        if (getConfig().getBoolean("chat.enabled", true)) {
-            sendChatAnnouncement(targets, message, sender);
-        }
-        
-        // Send boss bar announcement
-        if (getConfig().getBoolean("bossbar.enabled", false)) {
-            bossBarManager.sendBossBar(targets, message, sender);
-        }
-        
-        // Play sound
-        if (getConfig().getBoolean("sound.enabled", true)) {
-            playSoundToPlayers(targets);
-        }
-
-        // Send to Discord if enabled
-        if (discordSRVEnabled && discordConfig.getBoolean("discord.enabled", false)) {
-            discordManager.sendToDiscord(message, sender, targets.size());
-        }
+    public SettingsGeneration getGeneration() {
+        return generation;
     }
     
     /**
-     * Send title announcement to players
+     * Current compiled config.yml snapshot
      */
-    private void sendTitleAnnouncement(Collection<Player> targets, String message, Player sender) {
-        // Get config values
-        String titleStr = getConfig().getString("title.title", "&6&lAnnouncement");
-        String subtitleStr = getConfig().getString("title.subtitle", "&7%message%")
-                .replace("%message%", message);
-        
-        // Get display times
-        int fadeIn = getConfig().getInt("title.display-time.fade-in", 1);
-        int stay = getConfig().getInt("title.display-time.stay", 5);
-        int fadeOut = getConfig().getInt("title.display-time.fade-out", 1);
-
-        // Parse color codes
-        Component titleComponent = LegacyComponentSerializer.legacyAmpersand().deserialize(titleStr);
-
-        // Create title with custom timings
-        Title.Times times = Title.Times.times(
-            Duration.ofSeconds(fadeIn),
-            Duration.ofSeconds(stay),
-            Duration.ofSeconds(fadeOut)
-        );
-
-        // Send to all target players
-        for (Player player : targets) {
-            // Parse placeholders for each player individually if enabled
-            String playerSubtitle = subtitleStr;
-            if (placeholderAPIEnabled) {
-                playerSubtitle = PlaceholderAPI.setPlaceholders(player, playerSubtitle);
-            }
-            Component playerSubtitleComponent = LegacyComponentSerializer.legacyAmpersand()
-                    .deserialize(playerSubtitle);
-            Title playerTitle = Title.title(titleComponent, playerSubtitleComponent, times);
-            player.showTitle(playerTitle);
-        }
+    public PluginSettings getSettings() {
+        return generation.settings();
     }
     
     /**
-     * Send chat announcement to players
+     * Current compiled discord.yml snapshot
      */
-    private void sendChatAnnouncement(Collection<Player> targets, String message, Player sender) {
-        String senderName = sender != null ? sender.getName() : "Server";
-        
-        // Build chat message from config format
-        String[] lines = {
-            getConfig().getString("chat.format.header", ""),
-            getConfig().getString("chat.format.spacing-top", ""),
-            getConfig().getString("chat.format.title", ""),
-            getConfig().getString("chat.format.spacing-middle", ""),
-            getConfig().getString("chat.format.message", "").replace("%message%", message),
-            getConfig().getString("chat.format.spacing-bottom", ""),
-            getConfig().getString("chat.format.sender", "").replace("%player%", senderName),
-            getConfig().getString("chat.format.footer", "")
-        };
-        
-        for (Player player : targets) {
-            for (String line : lines) {
-                if (line == null || line.isEmpty()) {
-                    // Send blank line
-                    player.sendMessage(Component.empty());
-                    continue;
-                }
-                
-                // Parse placeholders for each player
-                String parsedLine = line;
-                if (placeholderAPIEnabled) {
-                    parsedLine = PlaceholderAPI.setPlaceholders(player, parsedLine);
-                }
-                
-                Component component = LegacyComponentSerializer.legacyAmpersand().deserialize(parsedLine);
-                player.sendMessage(component);
-            }
-        }
+    public DiscordSettings getDiscordSettings() {
+        return generation.discord();
+    }
+    
+    public TaskScheduler getTaskScheduler() {
+        return taskScheduler;
+    }
+    
+    public BossBarManager getBossBarManager() {
+        return bossBarManager;
+    }
+    
+    public AnnouncementRenderer getRenderer() {
+        return renderer;
+    }
+    
+    public AnnouncementMetrics getMetrics() {
+        return metrics;
+    }
+    
+    public void log(String msg) {
+        getLogger().log(Level.INFO, msg);
     }
     
     /**
-     * Play sound to players
+     * Send announcement to players with title, chat, boss bar, sound, and optional Discord message
+     * @param targets Collection of players to send announcement to
+     * @param message The announcement message
+     * @param sender The player or console who sent the announcement (null for console)
+     * @param scope What the announcement was addressed to, used for Discord channel routing
      */
-    private void playSoundToPlayers(Collection<Player> targets) {
-        String soundType = getConfig().getString("sound.type", "ENTITY_EXPERIENCE_ORB_PICKUP");
-        float volume = (float) getConfig().getDouble("sound.volume", 1.0);
-        float pitch = (float) getConfig().getDouble("sound.pitch", 1.0);
+    public void sendAnnouncement(Collection<Player> targets, String message, Player sender, AnnouncementScope scope) {
+        long start = System.nanoTime();
+        // Read the generation once so a concurrent reload can't mix settings
+        SettingsGeneration snapshot = generation;
+        PluginSettings current = snapshot.settings();
+        String senderName = sender != null ? sender.getName() : "Server";
+        TemplateContext context = new TemplateContext(message, senderName, targets.size());
+        renderer.beginAnnouncement(current.componentCache());
         
-        try {
-            Sound sound = Sound.valueOf(soundType);
-            for (Player player : targets) {
-                player.playSound(player.getLocation(), sound, volume, pitch);
-            }
-        } catch (IllegalArgumentException e) {
-            getLogger().warning("Invalid sound type in config: " + soundType);
+        // Title, chat, boss bar and sound: shared content is built once, personalized content per player
+        long prepareStart = System.nanoTime();
+        PreparedAnnouncement announcement = PreparedAnnouncement.prepare(renderer, current, context);
+        metrics.record(Stage.PREPARE, prepareStart);
+        dispatcher.dispatch(announcement, targets, sender);
+        metrics.announcementSent(targets.size());
+        
+        // Send to Discord if enabled
+        if (snapshot.discord().enabled()) {
+            discordManager.sendToDiscord(snapshot.discord(), message, sender, targets.size(), scope);
         }
+        metrics.record(Stage.ANNOUNCEMENT, start);
     }
 }
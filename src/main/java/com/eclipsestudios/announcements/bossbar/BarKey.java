@@ -0,0 +1,21 @@
+package com.eclipsestudios.announcements.bossbar;
+
+import com.eclipsestudios.announcements.config.PluginSettings;
+import net.kyori.adventure.text.Component;
+
+/**
+ * Bars are shared between recipients of the same settings snapshot and rendered title
+ * The snapshot is compared by identity, so a reload never joins a bar started before it
+ */
+record BarKey(PluginSettings.BossBarSettings settings, Component title) {
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof BarKey key && key.settings == settings && key.title.equals(title);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * System.identityHashCode(settings) + title.hashCode();
+    }
+}
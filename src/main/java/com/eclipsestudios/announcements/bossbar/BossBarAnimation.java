@@ -0,0 +1,169 @@
+package com.eclipsestudios.announcements.bossbar;
+
+import net.kyori.adventure.bossbar.BossBar;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * A boss bar animation compiled into per-frame tables
+ * Curves, easing and steps are evaluated once when config.yml is compiled,
+ * so advancing a bar is an array lookup
+ * Progress is quantized to what the client can draw, so the ticker can skip frames
+ * that look the same as the one it sent last
+ */
+public final class BossBarAnimation {
+
+    // The boss bar is drawn 182 pixels wide; notched overlays are drawn on top and still fill per pixel
+    static final int PIXEL_RESOLUTION = 182;
+
+    private final String name;
+    private final float[] progress;
+    // Style per frame, null where the bar keeps the configured color/style
+    private final BossBar.Color[] colors;
+    private final BossBar.Overlay[] overlays;
+
+    private BossBarAnimation(String name, float[] progress, BossBar.Color[] colors, BossBar.Overlay[] overlays) {
+        this.name = name;
+        this.progress = progress;
+        this.colors = colors;
+        this.overlays = overlays;
+    }
+
+    /**
+     * One keyframe at a point of the animation
+     * @param at Position in the animation, 0.0 (start) to 1.0 (end)
+     * @param color Color from this keyframe on, null to keep the current one
+     * @param overlay Overlay from this keyframe on, null to keep the current one
+     * @param easing Curve used towards the next keyframe
+     */
+    public record Keyframe(float at, float progress, BossBar.Color color, BossBar.Overlay overlay, Easing easing) {
+
+        public static Keyframe of(float at, float progress) {
+            return new Keyframe(at, progress, null, null, Easing.LINEAR);
+        }
+
+        public static Keyframe of(float at, float progress, Easing easing) {
+            return new Keyframe(at, progress, null, null, easing);
+        }
+    }
+
+    /**
+     * Built-in animation by name, or null if there is none with that name
+     * @param frames Number of frames (updates) the animation is played over
+     * @param durationSeconds Used by COUNTDOWN, which steps down once per second
+     */
+    public static BossBarAnimation builtIn(String name, int frames, int durationSeconds) {
+        return switch (name) {
+            case "FILL" -> compile(name, List.of(Keyframe.of(0, 0), Keyframe.of(1, 1)), 0, frames);
+            case "DRAIN" -> compile(name, List.of(Keyframe.of(0, 1), Keyframe.of(1, 0)), 0, frames);
+            case "PULSE" -> compile(name, List.of(Keyframe.of(0, 0), Keyframe.of(0.5f, 1), Keyframe.of(1, 0)), 0, frames);
+            case "EASE_IN" -> compile(name, List.of(Keyframe.of(0, 0, Easing.EASE_IN), Keyframe.of(1, 1)), 0, frames);
+            case "EASE_OUT" -> compile(name, List.of(Keyframe.of(0, 0, Easing.EASE_OUT), Keyframe.of(1, 1)), 0, frames);
+            case "EASE_IN_OUT" -> compile(name, List.of(Keyframe.of(0, 0, Easing.EASE_IN_OUT), Keyframe.of(1, 1)), 0, frames);
+            case "COUNTDOWN" -> compile(name, List.of(Keyframe.of(0, 1), Keyframe.of(1, 0)), durationSeconds, frames);
+            default -> null;
+        };
+    }
+
+    /**
+     * Compile keyframes into frame tables
+     * @param steps If above 0, progress is rounded up to multiples of 1/steps (stepped countdowns)
+     * @param frames Number of frames (updates) the animation is played over
+     */
+    public static BossBarAnimation compile(String name, List<Keyframe> keyframes, int steps, int frames) {
+        List<Keyframe> sorted = new ArrayList<>(keyframes);
+        sorted.sort(Comparator.comparingDouble(Keyframe::at));
+        if (sorted.isEmpty()) {
+            sorted.add(Keyframe.of(0, 1));
+        }
+
+        int frameCount = Math.max(1, frames);
+        float[] progress = new float[frameCount];
+        BossBar.Color[] colors = new BossBar.Color[frameCount];
+        BossBar.Overlay[] overlays = new BossBar.Overlay[frameCount];
+        BossBar.Color currentColor = null;
+        BossBar.Overlay currentOverlay = null;
+
+        int next = 0;
+        for (int frame = 0; frame < frameCount; frame++) {
+            float t = (float) frame / frameCount;
+
+            // Apply every keyframe reached by this frame
+            while (next < sorted.size() && sorted.get(next).at() <= t) {
+                Keyframe reached = sorted.get(next);
+                if (reached.color() != null) {
+                    currentColor = reached.color();
+                }
+                if (reached.overlay() != null) {
+                    currentOverlay = reached.overlay();
+                }
+                next++;
+            }
+
+            float value = interpolate(sorted, next, t);
+            if (steps > 0) {
+                value = (float) Math.ceil(value * steps - 1.0e-4f) / steps;
+            }
+            value = Math.max(0.0f, Math.min(1.0f, value));
+            progress[frame] = Math.round(value * PIXEL_RESOLUTION) / (float) PIXEL_RESOLUTION;
+            colors[frame] = currentColor;
+            overlays[frame] = currentOverlay;
+        }
+
+        return new BossBarAnimation(name, progress, colors, overlays);
+    }
+
+    /**
+     * Progress at time t, where next is the first keyframe after t
+     */
+    private static float interpolate(List<Keyframe> keyframes, int next, float t) {
+        if (next == 0) {
+            return keyframes.get(0).progress();
+        }
+        Keyframe from = keyframes.get(next - 1);
+        if (next >= keyframes.size()) {
+            return from.progress();
+        }
+        Keyframe to = keyframes.get(next);
+        float span = to.at() - from.at();
+        float local = span <= 0 ? 1.0f : (t - from.at()) / span;
+        return from.progress() + (to.progress() - from.progress()) * from.easing().apply(local);
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public int frameCount() {
+        return progress.length;
+    }
+
+    public float progress(int frame) {
+        return progress[frame];
+    }
+
+    /**
+     * Color on this frame, null to keep the configured color
+     */
+    public BossBar.Color color(int frame) {
+        return colors[frame];
+    }
+
+    /**
+     * Overlay on this frame, null to keep the configured style
+     */
+    public BossBar.Overlay overlay(int frame) {
+        return overlays[frame];
+    }
+
+    /**
+     * True if the two frames look the same: same progress, color and overlay
+     */
+    public boolean looksLike(int frame, int other) {
+        return progress[frame] == progress[other]
+            && colors[frame] == colors[other]
+            && overlays[frame] == overlays[other];
+    }
+}
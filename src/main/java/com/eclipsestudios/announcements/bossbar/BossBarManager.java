@@ -1,205 +1,322 @@
 package com.eclipsestudios.announcements.bossbar;
 
-import com.eclipsestudios.announcements.EclipseStudiosAnnouncements;
-import me.clip.placeholderapi.PlaceholderAPI;
+import com.eclipsestudios.announcements.config.PluginSettings;
 import net.kyori.adventure.bossbar.BossBar;
 import net.kyori.adventure.text.Component;
-import net.kyori.adventure.text.serializer.legacy.LegacyComponentSerializer;
-import org.bukkit.Bukkit;
+import com.eclipsestudios.announcements.scheduler.TaskHandle;
+import com.eclipsestudios.announcements.scheduler.TaskScheduler;
 import org.bukkit.entity.Player;
-import org.bukkit.scheduler.BukkitRunnable;
-import org.bukkit.scheduler.BukkitTask;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerQuitEvent;
 
-import java.util.Collection;
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.DoubleSupplier;
 
 /**
  * Manages animated boss bar announcements
+ * Recipients with an identical rendered title share one BossBar, so each progress step is
+ * a single update that Adventure fans out to every viewer; only differing titles get their own bar
+ * All bars are advanced by one shared ticker: bars started together form an animation group
+ * whose progress is computed once per step, and groups expire in bulk from a timing wheel
+ * Frames that look the same as the previous one are skipped, and under load frames can be dropped
+ * A queued bar only starts its timer once it is shown: it then gets a bar of its own, so the
+ * player sees the announcement for the full duration and animation
+ * Per-player state is keyed by UUID and released as soon as the player quits
  */
-public class BossBarManager {
+public class BossBarManager implements Listener {
     
-    private final EclipseStudiosAnnouncements plugin;
-    private final Map<Player, BossBar> activeBossBars = new HashMap<>();
-    private final Map<Player, BukkitTask> animationTasks = new HashMap<>();
+    private final TaskScheduler scheduler;
+    private final DoubleSupplier averageTickTime;
+    // Bars each player sees or has queued (changed from the player's thread)
+    private final Map<UUID, PlayerBars> players = new ConcurrentHashMap<>();
+    // Bars created since the last tick, still open for more viewers with the same title
+    private final Map<BarKey, SharedBar> openBars = new ConcurrentHashMap<>();
+    // Bars shown since the last tick, picked up by the ticker
+    private final Queue<SharedBar> started = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean tickerRunning = new AtomicBoolean();
+    private volatile TaskHandle ticker;
     
-    public BossBarManager(EclipseStudiosAnnouncements plugin) {
-        this.plugin = plugin;
+    // Ticker state, only touched from the ticker task
+    private final TimingWheel<AnimationGroup> expiries = new TimingWheel<>(512);
+    private final List<AnimationGroup> animating = new ArrayList<>();
+    private double mspt;
+    private boolean msptUnavailable;
+    
+    /**
+     * @param averageTickTime Average milliseconds per tick, used by adaptive animations
+     */
+    public BossBarManager(TaskScheduler scheduler, DoubleSupplier averageTickTime) {
+        this.scheduler = scheduler;
+        this.averageTickTime = averageTickTime;
     }
     
     /**
-     * Send boss bar announcement to players
+     * Show a boss bar announcement to a player
+     * The title is already rendered (shared or personalized) by the dispatcher
      */
-    public void sendBossBar(Collection<Player> targets, String message, Player sender) {
-        if (!plugin.getConfig().getBoolean("bossbar.enabled", false)) {
+    public void sendBossBar(PluginSettings.BossBarSettings settings, Player player, Component titleComponent) {
+        if (!settings.enabled() || !player.isOnline()) {
             return;
         }
         
-        String bossBarMessage = plugin.getConfig().getString("bossbar.message", "&6&l✦ &f%message% &6&l✦")
-            .replace("%message%", message);
+        // Join the bar other recipients of this announcement already see, or create it
+        SharedBar bar = openBars.computeIfAbsent(new BarKey(settings, titleComponent), this::start);
         
-        // Get boss bar settings
-        String colorStr = plugin.getConfig().getString("bossbar.color", "YELLOW");
-        String styleStr = plugin.getConfig().getString("bossbar.style", "SOLID");
-        
-        BossBar.Color color = parseBossBarColor(colorStr);
-        BossBar.Overlay overlay = parseBossBarStyle(styleStr);
+        // Show, queue or replace according to the stacking settings
+        UUID id = player.getUniqueId();
+        while (true) {
+            PlayerBars bars = players.computeIfAbsent(id, key -> new PlayerBars(player));
+            if (bars.add(bar, settings.maxVisible(), settings.maxQueued())) {
+                break;
+            }
+            // Released concurrently (expired or quit): drop it and start over
+            players.remove(id, bars);
+        }
         
-        // Animation settings
-        boolean animationEnabled = plugin.getConfig().getBoolean("bossbar.animation.enabled", true);
-        String animationType = plugin.getConfig().getString("bossbar.animation.type", "FILL");
-        int duration = plugin.getConfig().getInt("bossbar.animation.duration", 5);
-        int updateInterval = plugin.getConfig().getInt("bossbar.animation.update-interval", 2);
+        // The ticker animates and expires the bar from the next tick
+        ensureTicker();
+    }
+    
+    /**
+     * Create a bar on the first frame and hand it to the ticker, which starts its timer on the next tick
+     */
+    private SharedBar start(BarKey key) {
+        PluginSettings.BossBarSettings settings = key.settings();
+        BossBarAnimation animation = settings.animation();
+        BossBar.Color color = settings.color();
+        BossBar.Overlay overlay = settings.overlay();
+        if (settings.animationEnabled()) {
+            // Start on the first frame's style so the first update doesn't restyle the bar
+            color = animation.color(0) != null ? animation.color(0) : color;
+            overlay = animation.overlay(0) != null ? animation.overlay(0) : overlay;
+        }
+        SharedBar created = new SharedBar(key, BossBar.bossBar(
+            key.title(),
+            settings.animationEnabled() ? animation.progress(0) : 1.0f,
+            color,
+            overlay
+        ));
+        started.add(created);
+        return created;
+    }
+    
+    /**
+     * Fresh bar for a queued announcement that is now shown (player's thread)
+     * The shared bar has been counting down since the announcement was sent, this one starts now
+     */
+    private SharedBar restart(SharedBar queued) {
+        SharedBar bar = start(queued.key());
+        ensureTicker();
+        return bar;
+    }
+    
+    /**
+     * Start the shared ticker if it isn't running
+     */
+    private void ensureTicker() {
+        if (tickerRunning.compareAndSet(false, true)) {
+            ticker = scheduler.runGlobalTimer(this::tick, 1L, 1L);
+        }
+    }
+    
+    /**
+     * Advance every active bar by one tick
+     */
+    private void tick(TaskHandle task) {
+        // Expire groups whose time is up (bulk removal)
+        expiries.advance(this::expire);
+        long now = expiries.currentTick();
         
-        for (Player player : targets) {
-            // Cancel any existing boss bar for this player
-            removeBossBar(player);
+        // Close bars created since the last tick and group them by their settings snapshot
+        Map<PluginSettings.BossBarSettings, AnimationGroup> newGroups = new IdentityHashMap<>();
+        SharedBar bar;
+        while ((bar = started.poll()) != null) {
+            openBars.remove(bar.key(), bar);
             
-            // Parse message with placeholders for each player
-            String parsedMessage = bossBarMessage;
-            if (plugin.isPlaceholderAPIEnabled()) {
-                parsedMessage = PlaceholderAPI.setPlaceholders(player, parsedMessage);
+            PluginSettings.BossBarSettings settings = bar.key().settings();
+            AnimationGroup group = newGroups.get(settings);
+            if (group == null) {
+                group = new AnimationGroup(settings, now);
+                newGroups.put(settings, group);
+                expiries.schedule(group.expiryTick, group);
+                if (settings.animationEnabled()) {
+                    animating.add(group);
+                }
+            }
+            group.bars.add(bar);
+        }
+        
+        // Server load is sampled once a second for adaptive animations
+        if (now % 20 == 0 && !animating.isEmpty()) {
+            sampleMspt();
+        }
+        
+        // Frames are looked up once per group and applied once per bar
+        for (AnimationGroup group : animating) {
+            long elapsed = now - group.startTick;
+            if (elapsed % group.updateTicks != 0) {
+                continue;
             }
             
-            Component titleComponent = LegacyComponentSerializer.legacyAmpersand().deserialize(parsedMessage);
-            
-            // Create boss bar
-            BossBar bossBar = BossBar.bossBar(
-                titleComponent,
-                animationEnabled ? 0.0f : 1.0f,
-                color,
-                overlay
-            );
-            
-            // Show boss bar
-            player.showBossBar(bossBar);
-            activeBossBars.put(player, bossBar);
+            BossBarAnimation animation = group.settings.animation();
+            int frame = (int) (elapsed / group.updateTicks);
+            if (frame >= animation.frameCount()) {
+                continue;
+            }
+            // Under load only every skip-th frame is played (the last one always is)
+            int skip = frameSkip(group.settings.adaptive());
+            if (skip > 1 && frame % skip != 0 && frame != animation.frameCount() - 1) {
+                continue;
+            }
+            // Nothing to send if the bars already look like this
+            if (animation.looksLike(frame, group.sentFrame)) {
+                continue;
+            }
+            group.sentFrame = frame;
             
-            // Start animation
-            if (animationEnabled) {
-                BukkitTask task = startAnimation(player, bossBar, animationType, duration, updateInterval);
-                animationTasks.put(player, task);
-            } else {
-                // Just remove after duration
-                Bukkit.getScheduler().runTaskLater(plugin, () -> removeBossBar(player), duration * 20L);
+            float progress = animation.progress(frame);
+            BossBar.Color color = animation.color(frame);
+            BossBar.Overlay overlay = animation.overlay(frame);
+            boolean pruned = false;
+            for (SharedBar member : group.bars) {
+                if (member.isUnused()) {
+                    pruned = true;
+                } else {
+                    member.frame(progress, color, overlay);
+                }
+            }
+            if (pruned) {
+                group.bars.removeIf(SharedBar::isUnused);
+            }
+        }
+        
+        // Nothing left to do: stop until the next announcement
+        if (animating.isEmpty() && expiries.isEmpty() && started.isEmpty()) {
+            task.cancel();
+            tickerRunning.set(false);
+            // A bar may have been queued after the check above
+            if (!started.isEmpty()) {
+                ensureTicker();
             }
         }
     }
     
     /**
-     * Start boss bar animation
+     * Read the server's average tick time (not available on every server)
      */
-    private BukkitTask startAnimation(Player player, BossBar bossBar, String type, int durationSeconds, int updateInterval) {
-        final long totalTicks = durationSeconds * 20L;
-        final long updateTicks = Math.max(1, updateInterval);
-        final int totalUpdates = (int) (totalTicks / updateTicks);
-        
-        return new BukkitRunnable() {
-            int currentUpdate = 0;
-            
-            @Override
-            public void run() {
-                if (currentUpdate >= totalUpdates || !player.isOnline()) {
-                    removeBossBar(player);
-                    cancel();
-                    return;
-                }
-                
-                float progress = calculateProgress(type, currentUpdate, totalUpdates);
-                bossBar.progress(progress);
-                
-                currentUpdate++;
-            }
-        }.runTaskTimer(plugin, 0L, updateTicks);
+    private void sampleMspt() {
+        if (msptUnavailable) {
+            return;
+        }
+        try {
+            mspt = averageTickTime.getAsDouble();
+        } catch (RuntimeException e) {
+            msptUnavailable = true;
+            mspt = 0;
+        }
     }
     
     /**
-     * Calculate progress based on animation type
+     * Frames covered by one update: 1 normally, one more per multiple of the MSPT threshold
      */
-    private float calculateProgress(String type, int current, int total) {
-        float normalProgress = (float) current / (float) total;
-        
-        switch (type.toUpperCase()) {
-            case "FILL":
-                // Bar fills from 0 to 1
-                return normalProgress;
-                
-            case "DRAIN":
-                // Bar drains from 1 to 0
-                return 1.0f - normalProgress;
-                
-            case "PULSE":
-                // Bar pulses (0 -> 1 -> 0)
-                if (normalProgress <= 0.5f) {
-                    return normalProgress * 2.0f; // 0 to 1
-                } else {
-                    return (1.0f - normalProgress) * 2.0f; // 1 to 0
-                }
-                
-            default:
-                return normalProgress;
+    private int frameSkip(PluginSettings.AdaptiveAnimationSettings adaptive) {
+        if (!adaptive.enabled() || mspt <= adaptive.msptThreshold()) {
+            return 1;
         }
+        return (int) Math.min(adaptive.maxFrameSkip(), Math.ceil(mspt / adaptive.msptThreshold()));
     }
     
     /**
-     * Remove boss bar from player
+     * Remove every bar in an expired group
      */
-    private void removeBossBar(Player player) {
-        BossBar bossBar = activeBossBars.remove(player);
-        if (bossBar != null) {
-            player.hideBossBar(bossBar);
-        }
-        
-        BukkitTask task = animationTasks.remove(player);
-        if (task != null) {
-            task.cancel();
+    private void expire(AnimationGroup group) {
+        animating.remove(group);
+        for (SharedBar bar : group.bars) {
+            for (Player viewer : bar.viewers()) {
+                scheduler.runForPlayer(viewer, () -> expire(viewer, bar));
+            }
         }
     }
     
     /**
-     * Parse boss bar color from string
+     * Remove an expired bar for one viewer (player's thread)
+     * Only that bar is removed, a newer bar the player sees is left alone
      */
-    private BossBar.Color parseBossBarColor(String colorStr) {
-        try {
-            return BossBar.Color.valueOf(colorStr.toUpperCase());
-        } catch (IllegalArgumentException e) {
-            plugin.getLogger().warning("Invalid boss bar color: " + colorStr + ", using YELLOW");
-            return BossBar.Color.YELLOW;
+    private void expire(Player player, SharedBar bar) {
+        UUID id = player.getUniqueId();
+        PlayerBars bars = players.get(id);
+        if (bars != null && bars.expire(bar, this::restart)) {
+            players.remove(id, bars);
         }
     }
     
     /**
-     * Parse boss bar style from string
+     * Release a player's bars as soon as they leave
      */
-    private BossBar.Overlay parseBossBarStyle(String styleStr) {
-        try {
-            // Convert style names
-            switch (styleStr.toUpperCase()) {
-                case "SOLID":
-                    return BossBar.Overlay.PROGRESS;
-                case "SEGMENTED_6":
-                    return BossBar.Overlay.NOTCHED_6;
-                case "SEGMENTED_10":
-                    return BossBar.Overlay.NOTCHED_10;
-                case "SEGMENTED_12":
-                    return BossBar.Overlay.NOTCHED_12;
-                case "SEGMENTED_20":
-                    return BossBar.Overlay.NOTCHED_20;
-                default:
-                    return BossBar.Overlay.PROGRESS;
-            }
-        } catch (IllegalArgumentException e) {
-            plugin.getLogger().warning("Invalid boss bar style: " + styleStr + ", using SOLID");
-            return BossBar.Overlay.PROGRESS;
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerQuit(PlayerQuitEvent event) {
+        PlayerBars bars = players.remove(event.getPlayer().getUniqueId());
+        if (bars != null) {
+            bars.release();
         }
     }
     
+    /**
+     * Number of players with an announcement boss bar (shown or queued)
+     */
+    public int activeCount() {
+        return players.size();
+    }
+    
     /**
      * Clean up all active boss bars
      */
     public void cleanup() {
-        for (Player player : activeBossBars.keySet()) {
-            removeBossBar(player);
+        TaskHandle task = ticker;
+        if (task != null) {
+            task.cancel();
+        }
+        
+        players.values().forEach(PlayerBars::release);
+        players.clear();
+        openBars.clear();
+        started.clear();
+        animating.clear();
+        expiries.clear();
+        tickerRunning.set(false);
+    }
+    
+    /**
+     * Bars shown on the same tick with the same settings, animated and expired together
+     */
+    private static final class AnimationGroup {
+        
+        private final PluginSettings.BossBarSettings settings;
+        private final long startTick;
+        private final long updateTicks;
+        private final long expiryTick;
+        private final List<SharedBar> bars = new ArrayList<>();
+        // Last frame applied to the bars, they are created showing frame 0
+        private int sentFrame;
+        
+        AnimationGroup(PluginSettings.BossBarSettings settings, long startTick) {
+            long totalTicks = settings.duration() * 20L;
+            this.settings = settings;
+            this.startTick = startTick;
+            this.updateTicks = Math.max(1, settings.updateInterval());
+            this.expiryTick = startTick + (settings.animationEnabled()
+                ? settings.animation().frameCount() * updateTicks
+                : totalTicks);
         }
     }
 }
@@ -0,0 +1,44 @@
+package com.eclipsestudios.announcements.bossbar;
+
+/**
+ * Easing curves between two boss bar keyframes
+ */
+public enum Easing {
+    LINEAR {
+        @Override
+        public float apply(float t) {
+            return t;
+        }
+    },
+    EASE_IN {
+        @Override
+        public float apply(float t) {
+            return t * t;
+        }
+    },
+    EASE_OUT {
+        @Override
+        public float apply(float t) {
+            float inverse = 1.0f - t;
+            return 1.0f - inverse * inverse;
+        }
+    },
+    EASE_IN_OUT {
+        @Override
+        public float apply(float t) {
+            return t * t * (3.0f - 2.0f * t);
+        }
+    },
+    // Hold the keyframe's value until the next keyframe
+    STEP {
+        @Override
+        public float apply(float t) {
+            return 0.0f;
+        }
+    };
+
+    /**
+     * Map linear time (0 - 1) between two keyframes to interpolation weight (0 - 1)
+     */
+    public abstract float apply(float t);
+}
@@ -0,0 +1,89 @@
+package com.eclipsestudios.announcements.bossbar;
+
+import org.bukkit.entity.Player;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.UnaryOperator;
+
+/**
+ * The announcement bars one player sees, plus a bounded queue of bars waiting for a free slot
+ * Announcements carry no priority of their own, so waiting bars are shown first-in first-out
+ * A waiting bar only identifies the announcement, it is shown as a fresh bar whose timer starts then
+ */
+final class PlayerBars {
+
+    private final Player player;
+    private final List<SharedBar> visible = new ArrayList<>(1);
+    private final ArrayDeque<SharedBar> waiting = new ArrayDeque<>();
+    // Set once this state has been dropped from the registry
+    private boolean released;
+
+    PlayerBars(Player player) {
+        this.player = player;
+    }
+
+    /**
+     * Show a bar, queue it if all slots are taken, or replace the oldest bar if there is no queue
+     * Returns false if this state was already released (the caller retries with a fresh one)
+     */
+    synchronized boolean add(SharedBar bar, int maxVisible, int maxQueued) {
+        if (released) {
+            return false;
+        }
+        if (visible.contains(bar) || waiting.contains(bar)) {
+            return true;
+        }
+
+        if (visible.size() < maxVisible) {
+            visible.add(bar);
+            bar.show(player);
+        } else if (maxQueued > 0) {
+            // Full queue: the oldest waiting announcement is dropped, visible bars are left alone
+            if (waiting.size() >= maxQueued) {
+                waiting.pollFirst();
+            }
+            waiting.addLast(bar);
+        } else {
+            visible.remove(0).hide(player);
+            visible.add(bar);
+            bar.show(player);
+        }
+        return true;
+    }
+
+    /**
+     * Remove an expired bar and move the next waiting announcement into its slot
+     * Returns true if the player has no bars left (this state is then released)
+     * @param restart Creates the bar a waiting announcement is shown with, timed from now
+     */
+    synchronized boolean expire(SharedBar bar, UnaryOperator<SharedBar> restart) {
+        if (visible.remove(bar)) {
+            bar.hide(player);
+            SharedBar next = waiting.pollFirst();
+            if (next != null) {
+                SharedBar shown = restart.apply(next);
+                visible.add(shown);
+                shown.show(player);
+            }
+        }
+
+        if (visible.isEmpty() && waiting.isEmpty()) {
+            released = true;
+        }
+        return released;
+    }
+
+    /**
+     * Drop every bar (player quit or plugin disable)
+     */
+    synchronized void release() {
+        released = true;
+        for (SharedBar bar : visible) {
+            bar.hide(player);
+        }
+        visible.clear();
+        waiting.clear();
+    }
+}
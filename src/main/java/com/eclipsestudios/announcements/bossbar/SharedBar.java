@@ -0,0 +1,61 @@
+package com.eclipsestudios.announcements.bossbar;
+
+import net.kyori.adventure.bossbar.BossBar;
+import org.bukkit.entity.Player;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * One BossBar and the players currently viewing it
+ * Viewer changes and progress updates are serialized per bar, since on Folia viewers
+ * join and leave from their own region threads
+ */
+final class SharedBar {
+
+    private final BarKey key;
+    private final BossBar bossBar;
+    private final Set<Player> viewers = ConcurrentHashMap.newKeySet();
+
+    SharedBar(BarKey key, BossBar bossBar) {
+        this.key = key;
+        this.bossBar = bossBar;
+    }
+
+    BarKey key() {
+        return key;
+    }
+
+    Set<Player> viewers() {
+        return viewers;
+    }
+
+    synchronized void show(Player player) {
+        viewers.add(player);
+        player.showBossBar(bossBar);
+    }
+
+    synchronized void hide(Player player) {
+        if (viewers.remove(player)) {
+            player.hideBossBar(bossBar);
+        }
+    }
+
+    /**
+     * Apply one animation frame, a null color or overlay means the configured one
+     * Adventure only sends the values that actually changed
+     */
+    synchronized void frame(float progress, BossBar.Color color, BossBar.Overlay overlay) {
+        bossBar.progress(progress);
+        bossBar.color(color != null ? color : key.settings().color());
+        bossBar.overlay(overlay != null ? overlay : key.settings().overlay());
+    }
+
+    /**
+     * True once nobody is viewing this bar, the ticker can then drop it
+     * Players waiting for the announcement don't count, they are shown a bar of their own
+     */
+    boolean isUnused() {
+        return viewers.isEmpty();
+    }
+}
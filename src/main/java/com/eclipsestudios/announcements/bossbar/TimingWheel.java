@@ -0,0 +1,79 @@
+package com.eclipsestudios.announcements.bossbar;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Hashed timing wheel keyed by expiry tick
+ * Scheduling and expiring are O(1) per entry; entries more than one revolution
+ * away simply stay in their slot until their tick comes round
+ * Not thread-safe, owned by the boss bar ticker
+ */
+final class TimingWheel<T> {
+
+    private final List<Entry<T>>[] slots;
+    private final int mask;
+    private long currentTick;
+    private int size;
+
+    @SuppressWarnings("unchecked")
+    TimingWheel(int slotCount) {
+        // Round up to a power of two so the slot is a mask instead of a modulo
+        int capacity = Integer.highestOneBit(Math.max(2, slotCount - 1)) << 1;
+        this.slots = new List[capacity];
+        for (int i = 0; i < capacity; i++) {
+            slots[i] = new ArrayList<>();
+        }
+        this.mask = capacity - 1;
+    }
+
+    /**
+     * Schedule a value to expire at the given tick (next tick if already past)
+     */
+    void schedule(long expiryTick, T value) {
+        long tick = Math.max(expiryTick, currentTick + 1);
+        slots[(int) (tick & mask)].add(new Entry<>(tick, value));
+        size++;
+    }
+
+    /**
+     * Move to the next tick and hand every value that expires on it to the consumer
+     */
+    void advance(Consumer<T> expired) {
+        currentTick++;
+        List<Entry<T>> slot = slots[(int) (currentTick & mask)];
+        if (slot.isEmpty()) {
+            return;
+        }
+
+        Iterator<Entry<T>> iterator = slot.iterator();
+        while (iterator.hasNext()) {
+            Entry<T> entry = iterator.next();
+            if (entry.tick() <= currentTick) {
+                iterator.remove();
+                size--;
+                expired.accept(entry.value());
+            }
+        }
+    }
+
+    long currentTick() {
+        return currentTick;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    void clear() {
+        for (List<Entry<T>> slot : slots) {
+            slot.clear();
+        }
+        size = 0;
+    }
+
+    private record Entry<T>(long tick, T value) {
+    }
+}
@@ -1,6 +1,11 @@
 package com.eclipsestudios.announcements.commands;
 
 import com.eclipsestudios.announcements.EclipseStudiosAnnouncements;
+import com.eclipsestudios.announcements.config.PluginSettings;
+import com.eclipsestudios.announcements.delivery.AnnouncementScope;
+import com.eclipsestudios.announcements.metrics.AnnouncementMetrics;
+import com.eclipsestudios.announcements.metrics.LatencyHistogram;
+import com.eclipsestudios.announcements.template.ComponentCache;
 import net.kyori.adventure.text.Component;
 import net.kyori.adventure.text.serializer.legacy.LegacyComponentSerializer;
 import org.bukkit.Bukkit;
@@ -33,6 +38,11 @@ public class AnnouncementCommandHandler implements CommandExecutor, TabCompleter
             return handleReload(sender);
         }
 
+        // Handle stats command
+        if (cmd.equals("esastats")) {
+            return handleStats(sender);
+        }
+
         // Handle announcement commands
         if (cmd.equals("announcement") || cmd.equals("announce") || cmd.equals("ea")) {
             return handleAnnouncement(sender, args);
@@ -47,11 +57,68 @@ public class AnnouncementCommandHandler implements CommandExecutor, TabCompleter
             return true;
         }
 
-        plugin.reloadConfigs();
-        sender.sendMessage(color("&aEasy Announcements configs reloaded (config.yml + discord.yml)."));
+        // Files are read off the main thread, answer once the new configuration is in place
+        plugin.reloadConfigs().whenComplete((generation, error) -> plugin.getTaskScheduler().runGlobal(() -> {
+            if (error != null) {
+                sender.sendMessage(color("&cReload failed, keeping the previous configuration: " + error.getMessage()));
+            } else {
+                sender.sendMessage(color("&aEasy Announcements configs reloaded (config.yml + discord.yml)."));
+            }
+        }));
         return true;
     }
 
+    private boolean handleStats(CommandSender sender) {
+        if (!sender.hasPermission("esa.stats") && !sender.isOp()) {
+            sender.sendMessage(color("&cYou don't have permission to use this command."));
+            return true;
+        }
+
+        AnnouncementMetrics metrics = plugin.getMetrics();
+        sender.sendMessage(color("&6&lEasy Announcements - Stats"));
+        sender.sendMessage(color("&eAnnouncements: &f" + metrics.getAnnouncements()
+            + " &7| &eRecipients: &f" + metrics.getRecipients()
+            + " &7| &ePackets: &f" + metrics.getPacketsSent()));
+        sender.sendMessage(color("&eDiscord sent: &f" + metrics.getDiscordSent()
+            + " &7in &f" + metrics.getDiscordMessages() + " &7messages"
+            + " &7| &eFailed: &f" + metrics.getDiscordFailures()
+            + " &7| &eDuplicates: &f" + metrics.getDiscordDuplicates()
+            + " &7| &eDropped: &f" + metrics.getDiscordDropped()
+            + " &7| &eQueued: &f" + metrics.getDiscordQueueDepth()));
+        StringBuilder rejections = new StringBuilder();
+        for (AnnouncementMetrics.CommandRejection rejection : AnnouncementMetrics.CommandRejection.values()) {
+            rejections.append(" &7| &e").append(rejection.displayName()).append(": &f")
+                .append(metrics.commandRejections(rejection));
+        }
+        sender.sendMessage(color("&eDiscord commands: &f" + metrics.getDiscordCommandsAccepted()
+            + " &7accepted, rejected by" + rejections));
+
+        ComponentCache cache = plugin.getRenderer().getCache();
+        sender.sendMessage(color("&eComponent cache: &f" + cache.size() + "/" + cache.maxSize()
+            + " &7| &ehits &f" + cache.hits() + " &7| &emisses &f" + cache.misses()
+            + " &7| &eevictions &f" + cache.evictions()));
+        sender.sendMessage(color("&eActive boss bars: &f" + plugin.getBossBarManager().activeCount()));
+
+        // Percentiles are bucket upper bounds, within 12.5% of the true value
+        sender.sendMessage(color("&7Stage latency (p50 / p99 upper bounds / max, ms):"));
+        for (AnnouncementMetrics.Stage stage : AnnouncementMetrics.Stage.values()) {
+            LatencyHistogram histogram = metrics.histogram(stage);
+            if (histogram.count() == 0) {
+                continue;
+            }
+            sender.sendMessage(color("&e" + stage.displayName() + ": &f"
+                + millis(histogram.percentileNanos(0.50)) + " / "
+                + millis(histogram.percentileNanos(0.99)) + " / "
+                + millis(histogram.maxNanos())
+                + " &7(" + histogram.count() + " samples)"));
+        }
+        return true;
+    }
+
+    private String millis(long nanos) {
+        return String.format(Locale.ROOT, "%.3f", nanos / 1_000_000.0);
+    }
+
     private boolean handleAnnouncement(CommandSender sender, String[] args) {
         // Check permission
         if (!sender.hasPermission("esa.announcement") && !sender.hasPermission("esa.announce") && !sender.isOp()) {
@@ -64,12 +131,16 @@ public class AnnouncementCommandHandler implements CommandExecutor, TabCompleter
             return true;
         }
 
-        boolean defaultToAll = plugin.getConfig().getBoolean("general.default-to-all", true);
-        boolean perWorldEnabled = plugin.getConfig().getBoolean("per-world.enabled", false);
+        PluginSettings settings = plugin.getSettings();
+        boolean defaultToAll = settings.general().defaultToAll();
+        boolean perWorldEnabled = settings.perWorld().enabled();
         
         Collection<Player> targets = new ArrayList<>();
         String message;
         Player senderPlayer = sender instanceof Player ? (Player) sender : null;
+        AnnouncementScope.Source source = senderPlayer != null
+            ? AnnouncementScope.Source.PLAYER : AnnouncementScope.Source.CONSOLE;
+        AnnouncementScope scope;
 
         // Parse arguments for target selection
         String firstArg = args[0];
@@ -83,6 +154,7 @@ public class AnnouncementCommandHandler implements CommandExecutor, TabCompleter
             }
             targets = new ArrayList<>(Bukkit.getOnlinePlayers());
             message = String.join(" ", Arrays.copyOfRange(args, messageStartIndex, args.length));
+            scope = AnnouncementScope.all(source);
             
         // Check for @w (world selector) - only if per-world is enabled
         } else if (firstArg.equalsIgnoreCase("@w") && perWorldEnabled) {
@@ -102,7 +174,7 @@ public class AnnouncementCommandHandler implements CommandExecutor, TabCompleter
             }
             
             // Check if world is allowed
-            List<String> allowedWorlds = plugin.getConfig().getStringList("per-world.allowed-worlds");
+            List<String> allowedWorlds = settings.perWorld().allowedWorlds();
             if (!allowedWorlds.isEmpty() && !allowedWorlds.contains(worldName)) {
                 sender.sendMessage(color("&cAnnouncements are not allowed in world '" + worldName + "'."));
                 return true;
@@ -110,6 +182,7 @@ public class AnnouncementCommandHandler implements CommandExecutor, TabCompleter
             
             targets = new ArrayList<>(world.getPlayers());
             message = String.join(" ", Arrays.copyOfRange(args, 2, args.length));
+            scope = AnnouncementScope.world(world.getName(), source);
             
         // Check if first argument is a player name
         } else {
@@ -123,12 +196,14 @@ public class AnnouncementCommandHandler implements CommandExecutor, TabCompleter
                 }
                 targets.add(targetPlayer);
                 message = String.join(" ", Arrays.copyOfRange(args, messageStartIndex, args.length));
+                scope = AnnouncementScope.player(source);
                 
             } else if (defaultToAll) {
                 // First argument is not a player, and default-to-all is true
                 // Treat entire args as message and send to all
                 targets = new ArrayList<>(Bukkit.getOnlinePlayers());
                 message = String.join(" ", args);
+                scope = AnnouncementScope.all(source);
                 
             } else {
                 // First argument is not a valid player and default-to-all is false
@@ -150,10 +225,10 @@ public class AnnouncementCommandHandler implements CommandExecutor, TabCompleter
         }
 
         // Send the announcement
-        plugin.sendAnnouncement(targets, message, senderPlayer);
+        plugin.sendAnnouncement(targets, message, senderPlayer, scope);
 
         // Confirm to sender
-        sendConfirmation(sender, targets);
+        sendConfirmation(settings, sender, targets);
 
         return true;
     }
@@ -162,15 +237,16 @@ public class AnnouncementCommandHandler implements CommandExecutor, TabCompleter
      * Show command usage
      */
     private void showUsage(CommandSender sender) {
+        PluginSettings settings = plugin.getSettings();
         sender.sendMessage(color("&6&lEasy Announcements - Usage"));
         sender.sendMessage(color("&e/announcement @a <message> &7- Send to all players"));
         sender.sendMessage(color("&e/announcement <player> <message> &7- Send to specific player"));
         
-        if (plugin.getConfig().getBoolean("per-world.enabled", false)) {
+        if (settings.perWorld().enabled()) {
             sender.sendMessage(color("&e/announcement @w <world> <message> &7- Send to specific world"));
         }
         
-        if (plugin.getConfig().getBoolean("general.default-to-all", true)) {
+        if (settings.general().defaultToAll()) {
             sender.sendMessage(color("&e/announcement <message> &7- Send to all players (default)"));
         }
         
@@ -178,7 +254,7 @@ public class AnnouncementCommandHandler implements CommandExecutor, TabCompleter
         sender.sendMessage(color("&7  /announcement @a Server restart in 5 minutes!"));
         sender.sendMessage(color("&7  /announcement Steve Welcome to the server!"));
         
-        if (plugin.getConfig().getBoolean("per-world.enabled", false)) {
+        if (settings.perWorld().enabled()) {
             sender.sendMessage(color("&7  /announcement @w world Event starting in spawn!"));
         }
     }
@@ -186,7 +262,7 @@ public class AnnouncementCommandHandler implements CommandExecutor, TabCompleter
     /**
      * Send confirmation message to sender
      */
-    private void sendConfirmation(CommandSender sender, Collection<Player> targets) {
+    private void sendConfirmation(PluginSettings settings, CommandSender sender, Collection<Player> targets) {
         if (targets.size() == Bukkit.getOnlinePlayers().size()) {
             sender.sendMessage(color("&a✓ Announcement sent to all players (" + targets.size() + ")"));
         } else if (targets.size() == 1) {
@@ -194,7 +270,7 @@ public class AnnouncementCommandHandler implements CommandExecutor, TabCompleter
             sender.sendMessage(color("&a✓ Announcement sent to: " + target.getName()));
         } else {
             // Check if it's a world announcement
-            if (plugin.getConfig().getBoolean("per-world.enabled", false)) {
+            if (settings.perWorld().enabled()) {
                 // Find common world
                 World commonWorld = null;
                 for (Player p : targets) {
@@ -242,8 +318,8 @@ public class AnnouncementCommandHandler implements CommandExecutor, TabCompleter
     public List<String> onTabComplete(@NotNull CommandSender sender, @NotNull Command command, @NotNull String alias, @NotNull String[] args) {
         String cmd = command.getName().toLowerCase(Locale.ROOT);
         
-        // No tab completion for reload
-        if (cmd.equals("esareload")) {
+        // No tab completion for reload and stats
+        if (cmd.equals("esareload") || cmd.equals("esastats")) {
             return Collections.emptyList();
         }
 
@@ -254,7 +330,7 @@ public class AnnouncementCommandHandler implements CommandExecutor, TabCompleter
                 List<String> suggestions = new ArrayList<>();
                 suggestions.add("@a");
                 
-                if (plugin.getConfig().getBoolean("per-world.enabled", false)) {
+                if (plugin.getSettings().perWorld().enabled()) {
                     suggestions.add("@w");
                 }
                 
@@ -277,7 +353,7 @@ public class AnnouncementCommandHandler implements CommandExecutor, TabCompleter
                 // Second argument after @w: suggest world names
                 String input = args[1].toLowerCase(Locale.ROOT);
                 
-                List<String> allowedWorlds = plugin.getConfig().getStringList("per-world.allowed-worlds");
+                List<String> allowedWorlds = plugin.getSettings().perWorld().allowedWorlds();
                 
                 if (allowedWorlds.isEmpty()) {
                     // No restriction, show all worlds
@@ -0,0 +1,108 @@
+package com.eclipsestudios.announcements.config;
+
+import org.bukkit.configuration.InvalidConfigurationException;
+import org.bukkit.configuration.file.YamlConfiguration;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.function.Function;
+import java.util.logging.Logger;
+
+/**
+ * Reads and compiles config.yml and discord.yml into a settings generation
+ * Only touches the files and its own objects, so it can run on any thread
+ */
+public final class ConfigLoader {
+
+    public static final String CONFIG_FILE = "config.yml";
+    public static final String DISCORD_FILE = "discord.yml";
+
+    private final File dataFolder;
+    private final Function<String, InputStream> resources;
+    private final Logger logger;
+
+    /**
+     * @param resources Opens a bundled default file, null if missing
+     */
+    public ConfigLoader(File dataFolder, Function<String, InputStream> resources, Logger logger) {
+        this.dataFolder = dataFolder;
+        this.resources = resources;
+        this.logger = logger;
+    }
+
+    /**
+     * Parse and compile both files
+     * A file that isn't valid YAML fails the whole load, so the previous generation stays in use
+     */
+    public SettingsGeneration load(long id) throws IOException, InvalidConfigurationException {
+        YamlConfiguration config = read(CONFIG_FILE);
+        // Same as JavaPlugin.reloadConfig: missing keys fall back to the bundled config.yml
+        YamlConfiguration defaults = bundled(CONFIG_FILE);
+        if (defaults != null) {
+            config.setDefaults(defaults);
+        }
+        YamlConfiguration discordConfig = read(DISCORD_FILE);
+
+        return new SettingsGeneration(id, PluginSettings.compile(config, logger),
+            DiscordSettings.compile(discordConfig, logger), discordConfig);
+    }
+
+    /**
+     * Generation from the bundled defaults, used if the files can't be read on startup
+     */
+    public SettingsGeneration defaults(long id) {
+        YamlConfiguration config = new YamlConfiguration();
+        YamlConfiguration defaults = bundled(CONFIG_FILE);
+        if (defaults != null) {
+            config.setDefaults(defaults);
+        }
+        YamlConfiguration discordConfig = new YamlConfiguration();
+
+        return new SettingsGeneration(id, PluginSettings.compile(config, logger),
+            DiscordSettings.compile(discordConfig, logger), discordConfig);
+    }
+
+    private YamlConfiguration read(String name) throws IOException, InvalidConfigurationException {
+        File file = new File(dataFolder, name);
+        // Put the default file back if it was deleted
+        if (!file.exists()) {
+            saveDefault(name, file);
+        }
+
+        YamlConfiguration yaml = new YamlConfiguration();
+        if (file.exists()) {
+            try {
+                yaml.load(file);
+            } catch (InvalidConfigurationException e) {
+                throw new InvalidConfigurationException(name + " is not valid YAML: " + e.getMessage(), e);
+            }
+        }
+        return yaml;
+    }
+
+    private void saveDefault(String name, File file) throws IOException {
+        try (InputStream in = resources.apply(name)) {
+            if (in == null) {
+                return;
+            }
+            Files.createDirectories(dataFolder.toPath());
+            Files.copy(in, file.toPath());
+        }
+    }
+
+    private YamlConfiguration bundled(String name) {
+        InputStream in = resources.apply(name);
+        if (in == null) {
+            return null;
+        }
+        try (InputStreamReader reader = new InputStreamReader(in, StandardCharsets.UTF_8)) {
+            return YamlConfiguration.loadConfiguration(reader);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+}
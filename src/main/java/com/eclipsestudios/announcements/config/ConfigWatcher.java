@@ -0,0 +1,109 @@
+package com.eclipsestudios.announcements.config;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * Watches the plugin folder and reports changes to config.yml or discord.yml
+ * Changes are reported once the files have been quiet for the debounce time,
+ * so an editor saving in several steps causes a single reload
+ */
+public final class ConfigWatcher implements AutoCloseable {
+
+    private final WatchService watchService;
+    private final Thread thread;
+    private final long debounceMillis;
+    private final Runnable onChange;
+    private final Logger logger;
+
+    private ConfigWatcher(WatchService watchService, long debounceMillis, Runnable onChange, Logger logger) {
+        this.watchService = watchService;
+        this.debounceMillis = debounceMillis;
+        this.onChange = onChange;
+        this.logger = logger;
+        this.thread = Thread.ofPlatform().name("EasyAnnouncements-ConfigWatcher").daemon().unstarted(this::run);
+    }
+
+    /**
+     * Start watching a folder
+     * @param onChange Called on the watcher thread after the files changed
+     */
+    public static ConfigWatcher start(Path folder, long debounceMillis, Runnable onChange, Logger logger)
+            throws IOException {
+        WatchService watchService = FileSystems.getDefault().newWatchService();
+        try {
+            // Editors often save by writing a new file and renaming it over the old one
+            folder.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        } catch (IOException e) {
+            watchService.close();
+            throw e;
+        }
+        ConfigWatcher watcher = new ConfigWatcher(watchService, debounceMillis, onChange, logger);
+        watcher.thread.start();
+        return watcher;
+    }
+
+    public long debounceMillis() {
+        return debounceMillis;
+    }
+
+    private void run() {
+        try {
+            while (true) {
+                // Wait for a change, then until the files have been quiet for the debounce time
+                if (!drain(watchService.take())) {
+                    continue;
+                }
+                WatchKey key;
+                while ((key = watchService.poll(debounceMillis, TimeUnit.MILLISECONDS)) != null) {
+                    drain(key);
+                }
+
+                try {
+                    onChange.run();
+                } catch (RuntimeException e) {
+                    logger.warning("Automatic config reload failed: " + e.getMessage());
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // Closed
+        }
+    }
+
+    /**
+     * Consume the events of a key
+     * @return True if config.yml or discord.yml changed
+     */
+    private static boolean drain(WatchKey key) {
+        boolean relevant = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.context() instanceof Path path) {
+                String name = path.getFileName().toString();
+                relevant |= name.equals(ConfigLoader.CONFIG_FILE) || name.equals(ConfigLoader.DISCORD_FILE);
+            }
+        }
+        key.reset();
+        return relevant;
+    }
+
+    /**
+     * Stop watching
+     */
+    @Override
+    public void close() {
+        try {
+            watchService.close();
+        } catch (IOException ignored) {
+            // Nothing left to release
+        }
+        thread.interrupt();
+    }
+}
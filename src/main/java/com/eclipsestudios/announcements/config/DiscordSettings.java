@@ -0,0 +1,387 @@
+package com.eclipsestudios.announcements.config;
+
+import com.eclipsestudios.announcements.template.AnnouncementTemplate;
+import com.eclipsestudios.announcements.template.AnnouncementTemplate.Variable;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.file.FileConfiguration;
+
+import java.awt.Color;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Logger;
+
+/**
+ * Immutable, typed snapshot of discord.yml
+ * Compiled once on enable/reload so Discord sends never touch the YAML tree
+ */
+public final class DiscordSettings {
+    
+    private static final Color DEFAULT_COLOR = new Color(0xFFD700);
+    private static final Set<String> ROUTE_TARGETS = Set.of("all", "world", "player");
+    private static final Set<String> ROUTE_SOURCES = Set.of("player", "console", "discord");
+    
+    private final boolean enabled;
+    private final String channelId;
+    private final List<Route> routes;
+    // Parsed webhook URLs by configured channel, only valid ones are kept as channels
+    private final Map<String, URI> webhookUris;
+    private final OutboundSettings outbound;
+    private final WebhookSettings webhook;
+    private final EmbedSettings embed;
+    private final CommandSettings commands;
+    
+    private DiscordSettings(boolean enabled, String channelId, List<Route> routes, Map<String, URI> webhookUris,
+                            OutboundSettings outbound, WebhookSettings webhook, EmbedSettings embed,
+                            CommandSettings commands) {
+        this.enabled = enabled;
+        this.channelId = channelId;
+        this.routes = routes;
+        this.webhookUris = webhookUris;
+        this.outbound = outbound;
+        this.webhook = webhook;
+        this.embed = embed;
+        this.commands = commands;
+    }
+    
+    /**
+     * Compile discord.yml into a settings snapshot
+     * Invalid values are reported once here and replaced with their defaults
+     */
+    public static DiscordSettings compile(FileConfiguration config, Logger logger) {
+        boolean enabled = config.getBoolean("discord.enabled", false);
+        
+        Map<String, URI> webhookUris = new HashMap<>();
+        List<Route> routes = compileRoutes(config.getConfigurationSection("discord.routes"), webhookUris, logger);
+        String configuredChannel = config.getString("discord.channel-id", "");
+        String channelId = destination(configuredChannel, "discord.channel-id", webhookUris, logger);
+        if (channelId == null) {
+            // Invalid webhook URLs were already reported
+            if (enabled && routes.isEmpty() && !isDestination(configuredChannel)) {
+                logger.warning("Discord channel ID not configured! Please set discord.channel-id "
+                    + "(a channel ID or webhook URL) in discord.yml");
+            }
+            channelId = "";
+        }
+        
+        // Outbound queue (Discord allows 5 messages per 5 seconds per channel)
+        OutboundSettings outbound = new OutboundSettings(
+            Math.max(0, config.getLong("discord.outbound.coalesce-window-ms", 500)),
+            Math.max(1, config.getInt("discord.outbound.rate-limit-messages", 5)),
+            Math.max(1, config.getInt("discord.outbound.rate-limit-seconds", 5)),
+            Math.max(1, config.getInt("discord.outbound.max-queued", 100))
+        );
+        
+        // Webhook transport
+        WebhookSettings webhook = new WebhookSettings(
+            config.getString("discord.webhook.username", ""),
+            config.getString("discord.webhook.avatar-url", ""),
+            Math.max(1, config.getInt("discord.webhook.max-in-flight", 4)),
+            Math.max(1, config.getInt("discord.webhook.timeout-seconds", 10))
+        );
+        
+        // Embed color (HEX format)
+        String colorHex = config.getString("embed.color", "FFD700");
+        Color color;
+        try {
+            color = Color.decode("#" + colorHex.replace("#", ""));
+        } catch (NumberFormatException e) {
+            logger.warning("Invalid embed color: " + colorHex + ", using FFD700");
+            color = DEFAULT_COLOR;
+        }
+        
+        // Custom fields (embed builder functionality)
+        List<EmbedField> fields = new ArrayList<>();
+        ConfigurationSection fieldsSection = config.getConfigurationSection("embed.fields");
+        if (fieldsSection != null) {
+            for (String key : fieldsSection.getKeys(false)) {
+                ConfigurationSection field = fieldsSection.getConfigurationSection(key);
+                if (field != null && field.getBoolean("enabled", false)) {
+                    fields.add(new EmbedField(
+                        field.getString("name", "Field"),
+                        field.getString("value", "Value"),
+                        field.getBoolean("inline", false)
+                    ));
+                }
+            }
+        }
+        
+        EmbedSettings embed = new EmbedSettings(
+            config.getBoolean("embed.enabled", true),
+            color,
+            config.getString("embed.title", "📢 Server Announcement"),
+            AnnouncementTemplate.compile(config.getString("embed.description", "%message%"), Variable.MESSAGE),
+            config.getBoolean("embed.show-timestamp", true),
+            config.getBoolean("embed.author.enabled", true),
+            config.getBoolean("embed.author.show-player-name", true),
+            AnnouncementTemplate.compile(config.getString("embed.author.format", "Sent by %player%"), Variable.PLAYER),
+            AnnouncementTemplate.compile(config.getString("embed.author.icon-url", "https://minotar.net/avatar/%player%/64.png"),
+                Variable.PLAYER),
+            config.getBoolean("embed.thumbnail.enabled", false) ? config.getString("embed.thumbnail.url", "") : "",
+            config.getBoolean("embed.image.enabled", false) ? config.getString("embed.image.url", "") : "",
+            config.getBoolean("embed.footer.enabled", true),
+            config.getString("embed.footer.text", "Eciipse Studios™"),
+            config.getString("embed.footer.icon-url", ""),
+            config.getBoolean("embed.footer.show-player-count", true),
+            AnnouncementTemplate.compile(config.getString("embed.footer.player-count-format", "Sent to %count% player(s)"),
+                Variable.COUNT),
+            List.copyOf(fields)
+        );
+        
+        // The prefix listener sees every message, so everything it checks is resolved here
+        String prefix = config.getString("discord-commands.prefix-commands.prefix", "!");
+        String prefixCommandName = config.getString("discord-commands.prefix-commands.command-name", "announce");
+        boolean prefixEnabled = config.getBoolean("discord-commands.prefix-commands.enabled", true);
+        if (prefixEnabled && (prefix + prefixCommandName).isBlank()) {
+            logger.warning("Discord prefix command has no prefix or command name, disabling prefix commands");
+            prefixEnabled = false;
+        }
+        
+        CommandSettings commands = new CommandSettings(
+            config.getBoolean("discord-commands.slash-commands.enabled", true),
+            config.getString("discord-commands.slash-commands.command-name", "announce"),
+            config.getString("discord-commands.slash-commands.command-description",
+                "Send an announcement to Minecraft server"),
+            prefixEnabled,
+            prefix,
+            prefixCommandName,
+            prefix + prefixCommandName,
+            LongIdSet.parse(config.getStringList("discord-commands.prefix-commands.allowed-channel-ids"),
+                "channel", logger),
+            config.getBoolean("discord-commands.prefix-commands.allow-in-dms", false),
+            config.getBoolean("discord-commands.permissions.admin-only", true),
+            LongIdSet.parse(config.getStringList("discord-commands.permissions.allowed-role-ids"), "role", logger),
+            LongIdSet.parse(config.getStringList("discord-commands.permissions.allowed-user-ids"), "user", logger),
+            Math.max(0, config.getInt("discord-commands.permissions.cache-seconds", 30)),
+            config.getBoolean("discord-commands.options.enable-world-selection", true),
+            config.getBoolean("discord-commands.options.show-confirmation", true),
+            config.getString("discord-commands.options.confirmation-format",
+                "✅ Announcement sent to **%target%**: %message%"),
+            new CommandQueueSettings(
+                Math.max(1, config.getInt("discord-commands.queue.max-queued", 25)),
+                Math.max(1, config.getInt("discord-commands.queue.max-per-tick", 5)),
+                Math.max(0, config.getInt("discord-commands.queue.user-cooldown-seconds", 3))
+            )
+        );
+        
+        return new DiscordSettings(enabled, channelId, routes, Map.copyOf(webhookUris), outbound, webhook, embed,
+            commands);
+    }
+    
+    /**
+     * Compile the routing table, skipping routes without channels and unknown match values
+     */
+    private static List<Route> compileRoutes(ConfigurationSection section, Map<String, URI> webhookUris,
+                                             Logger logger) {
+        if (section == null) {
+            return List.of();
+        }
+        
+        List<Route> routes = new ArrayList<>();
+        for (String name : section.getKeys(false)) {
+            ConfigurationSection route = section.getConfigurationSection(name);
+            if (route == null || !route.getBoolean("enabled", true)) {
+                continue;
+            }
+            
+            List<String> channelIds = new ArrayList<>();
+            for (String channel : route.getStringList("channels")) {
+                String channelId = destination(channel, "discord.routes." + name + ".channels", webhookUris, logger);
+                if (channelId != null && !channelIds.contains(channelId)) {
+                    channelIds.add(channelId);
+                }
+            }
+            if (channelIds.isEmpty()) {
+                logger.warning("Discord route '" + name + "' has no channels configured, ignoring it");
+                continue;
+            }
+            
+            routes.add(new Route(
+                name,
+                List.copyOf(channelIds),
+                matchValues(route.getStringList("targets"), ROUTE_TARGETS, "target", name, logger),
+                matchValues(route.getStringList("worlds"), null, "world", name, logger),
+                matchValues(route.getStringList("sources"), ROUTE_SOURCES, "source", name, logger)
+            ));
+        }
+        return List.copyOf(routes);
+    }
+    
+    private static Set<String> matchValues(List<String> values, Set<String> allowed, String kind, String route,
+                                           Logger logger) {
+        Set<String> result = new HashSet<>();
+        for (String value : values) {
+            String normalized = value.toLowerCase(Locale.ROOT);
+            if (allowed != null && !allowed.contains(normalized)) {
+                logger.warning("Unknown " + kind + " '" + value + "' in Discord route '" + route
+                    + "', expected one of " + allowed);
+                continue;
+            }
+            result.add(normalized);
+        }
+        return Set.copyOf(result);
+    }
+    
+    private static boolean isDestination(String channelId) {
+        return channelId != null && !channelId.isEmpty() && !channelId.startsWith("YOUR_");
+    }
+    
+    /**
+     * Check a configured channel, parsing webhook URLs once so sends never have to
+     * @return The channel, null if it isn't configured or is a malformed webhook URL (reported with the token hidden)
+     */
+    private static String destination(String channel, String path, Map<String, URI> webhookUris, Logger logger) {
+        if (!isDestination(channel)) {
+            return null;
+        }
+        if (!isWebhookUrl(channel)) {
+            return channel;
+        }
+        URI uri = parseWebhookUrl(channel);
+        if (uri == null) {
+            logger.warning("Invalid webhook URL " + redactWebhookUrl(channel) + " in " + path
+                + " of discord.yml, ignoring it");
+            return null;
+        }
+        webhookUris.put(channel, uri);
+        return channel;
+    }
+    
+    private static URI parseWebhookUrl(String url) {
+        try {
+            URI uri = new URI(url);
+            // Webhook URLs end in /<id>/<token>
+            if (uri.getHost() == null || uri.getPath() == null || uri.getPath().lastIndexOf('/') <= 0) {
+                return null;
+            }
+            return uri;
+        } catch (URISyntaxException e) {
+            // The message contains the URL and with it the token
+            return null;
+        }
+    }
+    
+    /**
+     * A webhook URL with the token (everything after the last '/') hidden, safe to log
+     */
+    public static String redactWebhookUrl(String url) {
+        int hostStart = url.indexOf("://") + 3;
+        int tokenStart = url.lastIndexOf('/');
+        if (tokenStart < hostStart) {
+            return url.substring(0, Math.max(0, hostStart)) + "***";
+        }
+        return url.substring(0, tokenStart + 1) + "***";
+    }
+    
+    /**
+     * True if a configured channel is a webhook URL rather than a channel ID
+     */
+    public static boolean isWebhookUrl(String channel) {
+        return channel.startsWith("https://") || channel.startsWith("http://");
+    }
+    
+    public boolean enabled() {
+        return enabled;
+    }
+    
+    /**
+     * Configured channel ID or webhook URL, empty if not configured
+     */
+    public String channelId() {
+        return channelId;
+    }
+    
+    /**
+     * Additional channels for matching announcements, channel-id still receives every announcement
+     */
+    public List<Route> routes() {
+        return routes;
+    }
+    
+    /**
+     * Parsed URL of a channel configured as a webhook URL, null for channel IDs
+     */
+    public URI webhookUri(String channel) {
+        return webhookUris.get(channel);
+    }
+    
+    public OutboundSettings outbound() {
+        return outbound;
+    }
+    
+    public WebhookSettings webhook() {
+        return webhook;
+    }
+    
+    public EmbedSettings embed() {
+        return embed;
+    }
+    
+    public CommandSettings commands() {
+        return commands;
+    }
+    
+    /**
+     * One entry of the routing table, empty match sets match anything
+     * Match values are lower case: targets all/world/player, world names, sources player/console/discord
+     */
+    public record Route(String name, List<String> channelIds, Set<String> targets, Set<String> worlds,
+                        Set<String> sources) {
+    }
+    
+    /**
+     * Coalescing and rate limiting of outgoing Discord messages
+     * rateLimitMessages messages may be sent per rateLimitSeconds, as a burst or spread out
+     */
+    public record OutboundSettings(long coalesceWindowMillis, int rateLimitMessages, int rateLimitSeconds,
+                                   int maxQueued) {
+    }
+    
+    /**
+     * Options for channels configured as webhook URLs
+     * @param username Overrides the webhook's name, empty to keep it
+     * @param maxInFlight Webhook requests running at once, over all webhooks
+     */
+    public record WebhookSettings(String username, String avatarUrl, int maxInFlight, int timeoutSeconds) {
+    }
+    
+    public record EmbedSettings(boolean enabled, Color color, String title, AnnouncementTemplate description,
+                                boolean showTimestamp, boolean authorEnabled, boolean authorShowPlayerName,
+                                AnnouncementTemplate authorFormat, AnnouncementTemplate authorIconUrl,
+                                String thumbnailUrl, String imageUrl,
+                                boolean footerEnabled, String footerText, String footerIconUrl,
+                                boolean footerShowPlayerCount, AnnouncementTemplate footerPlayerCountFormat,
+                                List<EmbedField> fields) {
+    }
+    
+    public record EmbedField(String name, String value, boolean inline) {
+    }
+    
+    /**
+     * @param prefixCommand Prefix and command name together, what prefix command messages start with
+     * @param allowedChannelIds Guild channels prefix commands are read in, empty for all channels
+     * @param permissionCacheSeconds How long a member's permission decision is reused, 0 to check every time
+     */
+    public record CommandSettings(boolean slashEnabled, String slashCommandName, String slashCommandDescription,
+                                  boolean prefixEnabled, String prefix, String prefixCommandName,
+                                  String prefixCommand, LongIdSet allowedChannelIds, boolean allowInDms,
+                                  boolean adminOnly, LongIdSet allowedRoleIds, LongIdSet allowedUserIds,
+                                  int permissionCacheSeconds,
+                                  boolean enableWorldSelection, boolean showConfirmation,
+                                  String confirmationFormat, CommandQueueSettings queue) {
+    }
+    
+    /**
+     * Handoff of Discord commands to the main thread
+     * @param maxQueued Commands waiting at once, further ones are answered with "busy"
+     * @param userCooldownSeconds Minimum time between two commands of the same user, 0 for none
+     */
+    public record CommandQueueSettings(int maxQueued, int maxPerTick, int userCooldownSeconds) {
+    }
+}
@@ -0,0 +1,119 @@
+package com.eclipsestudios.announcements.config;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.logging.Logger;
+
+/**
+ * Immutable set of Discord snowflake IDs, looked up without boxing or hashing strings
+ * Open addressing with linear probing over a power-of-two table at most half full
+ */
+public final class LongIdSet {
+
+    private static final LongIdSet EMPTY = new LongIdSet(new long[0], 0);
+    // Snowflakes are never 0, so 0 marks a free slot
+    private static final long FREE = 0L;
+
+    private final long[] table;
+    private final int size;
+
+    private LongIdSet(long[] table, int size) {
+        this.table = table;
+        this.size = size;
+    }
+
+    public static LongIdSet empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Parse configured IDs, skipping "YOUR_..." placeholders and reporting anything that isn't an ID
+     * @param kind What the IDs are, for the warning (e.g. "channel")
+     */
+    public static LongIdSet parse(Collection<String> values, String kind, Logger logger) {
+        long[] ids = new long[values.size()];
+        int count = 0;
+        for (String value : values) {
+            if (value == null || value.isBlank() || value.startsWith("YOUR_")) {
+                continue;
+            }
+            try {
+                long id = Long.parseLong(value.trim());
+                if (id <= 0) {
+                    throw new NumberFormatException();
+                }
+                ids[count++] = id;
+            } catch (NumberFormatException e) {
+                logger.warning("Invalid Discord " + kind + " ID '" + value + "' in discord.yml, ignoring it");
+            }
+        }
+        return of(Arrays.copyOf(ids, count));
+    }
+
+    public static LongIdSet of(long... ids) {
+        if (ids.length == 0) {
+            return EMPTY;
+        }
+
+        int capacity = Integer.highestOneBit(Math.max(2, ids.length) * 2 - 1) << 1;
+        long[] table = new long[capacity];
+        int size = 0;
+        for (long id : ids) {
+            int slot = slot(id, table.length - 1);
+            while (table[slot] != FREE && table[slot] != id) {
+                slot = (slot + 1) & (table.length - 1);
+            }
+            if (table[slot] == FREE) {
+                table[slot] = id;
+                size++;
+            }
+        }
+        return new LongIdSet(table, size);
+    }
+
+    public boolean contains(long id) {
+        if (size == 0 || id == FREE) {
+            return false;
+        }
+        int mask = table.length - 1;
+        int slot = slot(id, mask);
+        while (true) {
+            long entry = table[slot];
+            if (entry == id) {
+                return true;
+            }
+            if (entry == FREE) {
+                return false;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private static int slot(long id, int mask) {
+        // The low bits of a snowflake are a per-process counter, mix the timestamp bits in
+        long mixed = id * 0x9E3779B97F4A7C15L;
+        return (int) (mixed >>> 32) & mask;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("[");
+        for (long entry : table) {
+            if (entry != FREE) {
+                if (builder.length() > 1) {
+                    builder.append(", ");
+                }
+                builder.append(entry);
+            }
+        }
+        return builder.append(']').toString();
+    }
+}
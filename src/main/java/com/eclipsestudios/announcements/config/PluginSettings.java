@@ -0,0 +1,425 @@
+package com.eclipsestudios.announcements.config;
+
+import com.eclipsestudios.announcements.bossbar.BossBarAnimation;
+import com.eclipsestudios.announcements.bossbar.Easing;
+import com.eclipsestudios.announcements.template.AnnouncementTemplate;
+import com.eclipsestudios.announcements.template.AnnouncementTemplate.Variable;
+import net.kyori.adventure.bossbar.BossBar;
+import net.kyori.adventure.title.Title;
+import org.bukkit.Sound;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.file.FileConfiguration;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Logger;
+
+/**
+ * Immutable, typed snapshot of config.yml
+ * Compiled once on enable/reload so announcements never touch the YAML tree
+ */
+public final class PluginSettings {
+    
+    // Every chat format line may use these, as documented in config.yml
+    private static final Variable[] CHAT_VARIABLES = {Variable.MESSAGE, Variable.PLAYER, Variable.WORLD};
+    
+    private final GeneralSettings general;
+    private final TitleSettings title;
+    private final ChatSettings chat;
+    private final BossBarSettings bossBar;
+    private final SoundSettings sound;
+    private final PerWorldSettings perWorld;
+    private final CacheSettings componentCache;
+    private final AsyncPlaceholderSettings asyncPlaceholders;
+    private final SpreadDeliverySettings spreadDelivery;
+    private final ReloadSettings reload;
+    
+    private PluginSettings(GeneralSettings general, TitleSettings title, ChatSettings chat,
+                           BossBarSettings bossBar, SoundSettings sound, PerWorldSettings perWorld,
+                           CacheSettings componentCache, AsyncPlaceholderSettings asyncPlaceholders,
+                           SpreadDeliverySettings spreadDelivery, ReloadSettings reload) {
+        this.general = general;
+        this.title = title;
+        this.chat = chat;
+        this.bossBar = bossBar;
+        this.sound = sound;
+        this.perWorld = perWorld;
+        this.componentCache = componentCache;
+        this.asyncPlaceholders = asyncPlaceholders;
+        this.spreadDelivery = spreadDelivery;
+        this.reload = reload;
+    }
+    
+    /**
+     * Compile config.yml into a settings snapshot
+     * Invalid values are reported once here and replaced with their defaults
+     */
+    public static PluginSettings compile(FileConfiguration config, Logger logger) {
+        GeneralSettings general = new GeneralSettings(
+            config.getBoolean("general.default-to-all", true)
+        );
+        
+        // Title
+        Title.Times times = Title.Times.times(
+            Duration.ofSeconds(config.getInt("title.display-time.fade-in", 1)),
+            Duration.ofSeconds(config.getInt("title.display-time.stay", 5)),
+            Duration.ofSeconds(config.getInt("title.display-time.fade-out", 1))
+        );
+        TitleSettings title = new TitleSettings(
+            config.getBoolean("title.enabled", true),
+            AnnouncementTemplate.compile(config.getString("title.title", "&6&lAnnouncement")),
+            AnnouncementTemplate.compile(config.getString("title.subtitle", "&7%message%"), Variable.MESSAGE),
+            times
+        );
+        
+        // Chat lines in display order
+        ChatSettings chat = new ChatSettings(
+            config.getBoolean("chat.enabled", true),
+            parseChatDelivery(config.getString("chat.delivery", "LINES"), logger),
+            List.of(
+                AnnouncementTemplate.compile(config.getString("chat.format.header", ""), CHAT_VARIABLES),
+                AnnouncementTemplate.compile(config.getString("chat.format.spacing-top", ""), CHAT_VARIABLES),
+                AnnouncementTemplate.compile(config.getString("chat.format.title", ""), CHAT_VARIABLES),
+                AnnouncementTemplate.compile(config.getString("chat.format.spacing-middle", ""), CHAT_VARIABLES),
+                AnnouncementTemplate.compile(config.getString("chat.format.message", ""), CHAT_VARIABLES),
+                AnnouncementTemplate.compile(config.getString("chat.format.spacing-bottom", ""), CHAT_VARIABLES),
+                AnnouncementTemplate.compile(config.getString("chat.format.sender", ""), CHAT_VARIABLES),
+                AnnouncementTemplate.compile(config.getString("chat.format.footer", ""), CHAT_VARIABLES)
+            )
+        );
+        
+        // Boss bar
+        int bossBarDuration = config.getInt("bossbar.animation.duration", 5);
+        int bossBarUpdateInterval = Math.max(1, config.getInt("bossbar.animation.update-interval", 2));
+        BossBarSettings bossBar = new BossBarSettings(
+            config.getBoolean("bossbar.enabled", false),
+            AnnouncementTemplate.compile(config.getString("bossbar.message", "&6&l✦ &f%message% &6&l✦"), Variable.MESSAGE),
+            parseBossBarColor(config.getString("bossbar.color", "YELLOW"), logger),
+            parseBossBarStyle(config.getString("bossbar.style", "SOLID"), logger),
+            config.getBoolean("bossbar.animation.enabled", true),
+            parseAnimation(config, bossBarDuration, bossBarUpdateInterval, logger),
+            bossBarDuration,
+            bossBarUpdateInterval,
+            Math.max(1, config.getInt("bossbar.stacking.max-visible", 1)),
+            Math.max(0, config.getInt("bossbar.stacking.max-queued", 0)),
+            new AdaptiveAnimationSettings(
+                config.getBoolean("bossbar.animation.adaptive.enabled", false),
+                Math.max(1.0, config.getDouble("bossbar.animation.adaptive.mspt-threshold", 40.0)),
+                Math.max(1, config.getInt("bossbar.animation.adaptive.max-frame-skip", 4))
+            )
+        );
+        
+        // Sound (only looked up when enabled, the lookup goes through the server's registry)
+        boolean soundEnabled = config.getBoolean("sound.enabled", true);
+        Sound parsedSound = soundEnabled
+            ? parseSound(config.getString("sound.type", "ENTITY_EXPERIENCE_ORB_PICKUP"), logger)
+            : null;
+        SoundSettings sound = new SoundSettings(
+            soundEnabled && parsedSound != null,
+            parsedSound == null ? null : net.kyori.adventure.sound.Sound.sound(
+                parsedSound,
+                net.kyori.adventure.sound.Sound.Source.MASTER,
+                (float) config.getDouble("sound.volume", 1.0),
+                (float) config.getDouble("sound.pitch", 1.0)
+            )
+        );
+        
+        // Per-world
+        PerWorldSettings perWorld = new PerWorldSettings(
+            config.getBoolean("per-world.enabled", false),
+            List.copyOf(config.getStringList("per-world.allowed-worlds"))
+        );
+        
+        // Resolved-text Component cache
+        CacheSettings componentCache = new CacheSettings(
+            config.getBoolean("performance.component-cache.enabled", true),
+            Math.max(1, config.getInt("performance.component-cache.max-size", 512)),
+            config.getBoolean("performance.component-cache.shared-across-announcements", true)
+        );
+        
+        // Off-main-thread placeholder resolution
+        Set<String> mainThreadExpansions = new HashSet<>();
+        for (String identifier : config.getStringList("performance.async-placeholders.main-thread-expansions")) {
+            mainThreadExpansions.add(identifier.toLowerCase(Locale.ROOT));
+        }
+        AsyncPlaceholderSettings asyncPlaceholders = new AsyncPlaceholderSettings(
+            config.getBoolean("performance.async-placeholders.enabled", false),
+            Math.max(0, config.getInt("performance.async-placeholders.threads", 0)),
+            Set.copyOf(mainThreadExpansions)
+        );
+        
+        // Tick-budgeted delivery for large recipient sets
+        SpreadDeliverySettings spreadDelivery = new SpreadDeliverySettings(
+            config.getBoolean("performance.spread-delivery.enabled", false),
+            Math.max(1, config.getInt("performance.spread-delivery.min-recipients", 200)),
+            Math.max(0.1, config.getDouble("performance.spread-delivery.tick-budget-ms", 5.0)),
+            Math.max(1, config.getInt("performance.spread-delivery.max-spread-ticks", 20)),
+            parseDeliveryOrder(config.getString("performance.spread-delivery.order", "NONE"), logger)
+        );
+        
+        // Automatic reload when the config files change
+        ReloadSettings reload = new ReloadSettings(
+            config.getBoolean("reload.watch-files", false),
+            Math.max(50, config.getLong("reload.debounce-ms", 500))
+        );
+        
+        return new PluginSettings(general, title, chat, bossBar, sound, perWorld, componentCache, asyncPlaceholders,
+            spreadDelivery, reload);
+    }
+    
+    /**
+     * Parse boss bar color from string
+     */
+    private static BossBar.Color parseBossBarColor(String colorStr, Logger logger) {
+        try {
+            return BossBar.Color.valueOf(colorStr.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            logger.warning("Invalid boss bar color: " + colorStr + ", using YELLOW");
+            return BossBar.Color.YELLOW;
+        }
+    }
+    
+    /**
+     * Parse boss bar style from string
+     */
+    private static BossBar.Overlay parseBossBarStyle(String styleStr, Logger logger) {
+        // Convert style names
+        switch (styleStr.toUpperCase(Locale.ROOT)) {
+            case "SOLID":
+                return BossBar.Overlay.PROGRESS;
+            case "SEGMENTED_6":
+                return BossBar.Overlay.NOTCHED_6;
+            case "SEGMENTED_10":
+                return BossBar.Overlay.NOTCHED_10;
+            case "SEGMENTED_12":
+                return BossBar.Overlay.NOTCHED_12;
+            case "SEGMENTED_20":
+                return BossBar.Overlay.NOTCHED_20;
+            default:
+                logger.warning("Invalid boss bar style: " + styleStr + ", using SOLID");
+                return BossBar.Overlay.PROGRESS;
+        }
+    }
+    
+    /**
+     * Compile the selected boss bar animation into frame tables
+     * Names are looked up in bossbar.animations first, then in the built-in animations
+     */
+    private static BossBarAnimation parseAnimation(FileConfiguration config, int duration, int updateInterval,
+                                                   Logger logger) {
+        String type = config.getString("bossbar.animation.type", "FILL").toUpperCase(Locale.ROOT);
+        int frames = Math.max(1, (int) (duration * 20L / updateInterval));
+        
+        ConfigurationSection custom = findSection(config.getConfigurationSection("bossbar.animations"), type);
+        if (custom != null) {
+            List<BossBarAnimation.Keyframe> keyframes = new ArrayList<>();
+            for (Map<?, ?> raw : custom.getMapList("keyframes")) {
+                keyframes.add(parseKeyframe(type, raw, logger));
+            }
+            if (keyframes.isEmpty()) {
+                logger.warning("Boss bar animation " + type + " has no keyframes, using FILL");
+                return BossBarAnimation.builtIn("FILL", frames, duration);
+            }
+            return BossBarAnimation.compile(type, keyframes, Math.max(0, custom.getInt("steps", 0)), frames);
+        }
+        
+        BossBarAnimation builtIn = BossBarAnimation.builtIn(type, frames, duration);
+        if (builtIn == null) {
+            logger.warning("Invalid boss bar animation type: " + type + ", using FILL");
+            return BossBarAnimation.builtIn("FILL", frames, duration);
+        }
+        return builtIn;
+    }
+    
+    /**
+     * Find a child section by name, ignoring case
+     */
+    private static ConfigurationSection findSection(ConfigurationSection parent, String name) {
+        if (parent == null) {
+            return null;
+        }
+        for (String key : parent.getKeys(false)) {
+            if (key.equalsIgnoreCase(name)) {
+                return parent.getConfigurationSection(key);
+            }
+        }
+        return null;
+    }
+    
+    /**
+     * Parse one keyframe map: at, progress, and optional color, style and easing
+     */
+    private static BossBarAnimation.Keyframe parseKeyframe(String animation, Map<?, ?> raw, Logger logger) {
+        float at = raw.get("at") instanceof Number number ? number.floatValue() : 0.0f;
+        float progress = raw.get("progress") instanceof Number number ? number.floatValue() : 1.0f;
+        BossBar.Color color = raw.get("color") != null
+            ? parseBossBarColor(raw.get("color").toString(), logger)
+            : null;
+        BossBar.Overlay overlay = raw.get("style") != null
+            ? parseBossBarStyle(raw.get("style").toString(), logger)
+            : null;
+        
+        Easing easing = Easing.LINEAR;
+        if (raw.get("easing") != null) {
+            try {
+                easing = Easing.valueOf(raw.get("easing").toString().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                logger.warning("Invalid easing in boss bar animation " + animation + ": " + raw.get("easing") + ", using LINEAR");
+            }
+        }
+        
+        return new BossBarAnimation.Keyframe(
+            Math.max(0.0f, Math.min(1.0f, at)),
+            Math.max(0.0f, Math.min(1.0f, progress)),
+            color,
+            overlay,
+            easing
+        );
+    }
+    
+    /**
+     * Parse chat delivery mode from string
+     */
+    private static ChatDelivery parseChatDelivery(String deliveryStr, Logger logger) {
+        try {
+            return ChatDelivery.valueOf(deliveryStr.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            logger.warning("Invalid chat delivery mode: " + deliveryStr + ", using LINES");
+            return ChatDelivery.LINES;
+        }
+    }
+    
+    /**
+     * Parse delivery order from string
+     */
+    private static DeliveryOrder parseDeliveryOrder(String orderStr, Logger logger) {
+        try {
+            return DeliveryOrder.valueOf(orderStr.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            logger.warning("Invalid delivery order: " + orderStr + ", using NONE");
+            return DeliveryOrder.NONE;
+        }
+    }
+    
+    /**
+     * Parse sound from string, returns null (sound disabled) if invalid
+     */
+    @SuppressWarnings("deprecation")
+    private static Sound parseSound(String soundType, Logger logger) {
+        try {
+            return Sound.valueOf(soundType);
+        } catch (IllegalArgumentException e) {
+            logger.warning("Invalid sound type in config: " + soundType + ", sound disabled");
+            return null;
+        }
+    }
+    
+    public GeneralSettings general() {
+        return general;
+    }
+    
+    public TitleSettings title() {
+        return title;
+    }
+    
+    public ChatSettings chat() {
+        return chat;
+    }
+    
+    public BossBarSettings bossBar() {
+        return bossBar;
+    }
+    
+    public SoundSettings sound() {
+        return sound;
+    }
+    
+    public PerWorldSettings perWorld() {
+        return perWorld;
+    }
+    
+    public CacheSettings componentCache() {
+        return componentCache;
+    }
+    
+    public AsyncPlaceholderSettings asyncPlaceholders() {
+        return asyncPlaceholders;
+    }
+    
+    public SpreadDeliverySettings spreadDelivery() {
+        return spreadDelivery;
+    }
+    
+    public ReloadSettings reload() {
+        return reload;
+    }
+    
+    public record GeneralSettings(boolean defaultToAll) {
+    }
+    
+    public record TitleSettings(boolean enabled, AnnouncementTemplate title, AnnouncementTemplate subtitle,
+                                Title.Times times) {
+    }
+    
+    public record ChatSettings(boolean enabled, ChatDelivery delivery, List<AnnouncementTemplate> lines) {
+    }
+    
+    /**
+     * How the multi-line chat format is delivered
+     */
+    public enum ChatDelivery {
+        // One chat message per configured line
+        LINES,
+        // All lines joined with newlines into a single chat message
+        SINGLE
+    }
+    
+    public record BossBarSettings(boolean enabled, AnnouncementTemplate message, BossBar.Color color, BossBar.Overlay overlay,
+                                  boolean animationEnabled, BossBarAnimation animation, int duration, int updateInterval,
+                                  int maxVisible, int maxQueued, AdaptiveAnimationSettings adaptive) {
+    }
+    
+    /**
+     * Lower the animation frame rate while the server is lagging
+     * @param maxFrameSkip Upper bound on how many frames one update may cover
+     */
+    public record AdaptiveAnimationSettings(boolean enabled, double msptThreshold, int maxFrameSkip) {
+    }
+    
+    public record SoundSettings(boolean enabled, net.kyori.adventure.sound.Sound sound) {
+    }
+    
+    public record PerWorldSettings(boolean enabled, List<String> allowedWorlds) {
+    }
+    
+    public record CacheSettings(boolean enabled, int maxSize, boolean sharedAcrossAnnouncements) {
+    }
+    
+    public record AsyncPlaceholderSettings(boolean enabled, int threads, Set<String> mainThreadExpansions) {
+    }
+    
+    public record SpreadDeliverySettings(boolean enabled, int minRecipients, double tickBudgetMillis,
+                                         int maxSpreadTicks, DeliveryOrder order) {
+    }
+    
+    /**
+     * @param debounceMillis Quiet time after the last file change before reloading, editors save in several steps
+     */
+    public record ReloadSettings(boolean watchFiles, long debounceMillis) {
+    }
+    
+    /**
+     * Which recipients are delivered to first when delivery is spread over several ticks
+     */
+    public enum DeliveryOrder {
+        // Keep the target order
+        NONE,
+        // Players in the sender's world first
+        SENDER_WORLD_FIRST
+    }
+}
@@ -0,0 +1,13 @@
+package com.eclipsestudios.announcements.config;
+
+import org.bukkit.configuration.file.FileConfiguration;
+
+/**
+ * Both config files compiled together, published as one unit so no reader ever sees
+ * config.yml from one reload and discord.yml from another
+ * @param id Increases with every reload, a slower reload never replaces a newer generation
+ * @param discordConfig Raw discord.yml this generation was compiled from
+ */
+public record SettingsGeneration(long id, PluginSettings settings, DiscordSettings discord,
+                                 FileConfiguration discordConfig) {
+}
@@ -0,0 +1,328 @@
+package com.eclipsestudios.announcements.delivery;
+
+import com.eclipsestudios.announcements.bossbar.BossBarManager;
+import com.eclipsestudios.announcements.config.PluginSettings;
+import com.eclipsestudios.announcements.metrics.AnnouncementMetrics;
+import com.eclipsestudios.announcements.metrics.AnnouncementMetrics.Stage;
+import com.eclipsestudios.announcements.scheduler.TaskScheduler;
+import net.kyori.adventure.audience.Audience;
+import net.kyori.adventure.sound.Sound;
+import net.kyori.adventure.text.Component;
+import org.bukkit.World;
+import org.bukkit.entity.Player;
+import org.bukkit.plugin.Plugin;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.logging.Level;
+
+/**
+ * Delivers title, chat, boss bar and sound announcements in two phases:
+ * a render phase that resolves personalized content (optionally off the main thread)
+ * and a packet-only dispatch phase on the main thread.
+ * Non-personalized content is sent with one call on a forwarding Audience.
+ */
+public class AnnouncementDispatcher {
+
+    // Recipients rendered per async task
+    private static final int RENDER_BATCH_SIZE = 64;
+
+    private final Plugin plugin;
+    private final TaskScheduler scheduler;
+    private final BossBarManager bossBarManager;
+    private final AnnouncementMetrics metrics;
+    private ExecutorService renderExecutor;
+    private int renderThreads = -1;
+
+    public AnnouncementDispatcher(Plugin plugin, TaskScheduler scheduler, BossBarManager bossBarManager,
+                                  AnnouncementMetrics metrics) {
+        this.plugin = plugin;
+        this.scheduler = scheduler;
+        this.bossBarManager = bossBarManager;
+        this.metrics = metrics;
+    }
+
+    /**
+     * Render and deliver a prepared announcement
+     * @param sender The player who sent the announcement (used for delivery ordering), null for console
+     */
+    public void dispatch(PreparedAnnouncement announcement, Collection<Player> targets, Player sender) {
+        // Folia: render and deliver on each player's own region thread
+        if (scheduler.isRegionThreaded()) {
+            dispatchPerRegion(announcement, targets);
+            return;
+        }
+
+        List<Player> recipients = order(announcement.settings().spreadDelivery(), targets, sender);
+
+        // Nothing per-player to render: broadcast shared content right away
+        if (!announcement.isPersonalized()) {
+            deliver(announcement, recipients, List.of());
+            return;
+        }
+
+        PluginSettings.AsyncPlaceholderSettings async = announcement.settings().asyncPlaceholders();
+        if (async.enabled() && canRenderAsync(announcement, async)) {
+            renderAsync(announcement, async, recipients);
+            return;
+        }
+
+        deliver(announcement, recipients, renderAll(announcement, recipients, worldNames(announcement, recipients)));
+    }
+
+    /**
+     * Schedule rendering and delivery for each player on the region thread that owns them
+     * Regions run in parallel, so there is no need for async rendering or spread delivery
+     */
+    private void dispatchPerRegion(PreparedAnnouncement announcement, Collection<Player> targets) {
+        boolean personalized = announcement.isPersonalized();
+        for (Player player : targets) {
+            scheduler.runForPlayer(player, () -> deliverSlice(
+                announcement,
+                List.of(player),
+                personalized
+                    ? renderAll(announcement, List.of(player), worldNames(announcement, List.of(player)))
+                    : List.of()
+            ));
+        }
+    }
+
+    /**
+     * Order recipients for delivery (only matters when delivery is spread over several ticks)
+     * Always returns a copy, rendering and spread delivery may read it after the targets have changed
+     */
+    private List<Player> order(PluginSettings.SpreadDeliverySettings spread, Collection<Player> targets, Player sender) {
+        List<Player> recipients = new ArrayList<>(targets);
+        if (spread.order() == PluginSettings.DeliveryOrder.SENDER_WORLD_FIRST && sender != null) {
+            World senderWorld = sender.getWorld();
+            // Stable sort keeps the original order within each group
+            recipients.sort(Comparator.comparingInt(player -> player.getWorld().equals(senderWorld) ? 0 : 1));
+        }
+        return recipients;
+    }
+
+    /**
+     * True if none of the placeholders used must be resolved on the main thread
+     */
+    private boolean canRenderAsync(PreparedAnnouncement announcement, PluginSettings.AsyncPlaceholderSettings async) {
+        for (String identifier : announcement.placeholderIdentifiers()) {
+            if (async.mainThreadExpansions().contains(identifier)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Recipients' world names, read here because render threads must not touch player state
+     * @return Names aligned with recipients, null if the announcement doesn't show %world%
+     */
+    private List<String> worldNames(PreparedAnnouncement announcement, List<Player> recipients) {
+        if (!announcement.usesWorld()) {
+            return null;
+        }
+        List<String> names = new ArrayList<>(recipients.size());
+        for (Player player : recipients) {
+            names.add(player.getWorld().getName());
+        }
+        return names;
+    }
+
+    /**
+     * Render personalized content for every recipient on the current thread
+     * @param worldNames Recipients' world names from {@link #worldNames}, null if unused
+     */
+    private List<RecipientPayload> renderAll(PreparedAnnouncement announcement, List<Player> recipients,
+                                             List<String> worldNames) {
+        long start = System.nanoTime();
+        List<RecipientPayload> payloads = new ArrayList<>(recipients.size());
+        for (int i = 0; i < recipients.size(); i++) {
+            payloads.add(announcement.render(recipients.get(i), worldNames != null ? worldNames.get(i) : null));
+        }
+        announcement.finishRenderBatch();
+        metrics.record(Stage.RENDER, start);
+        return payloads;
+    }
+
+    /**
+     * Resolve placeholders in parallel on the render executor, then hand the
+     * payloads back to the main thread for dispatch
+     */
+    private void renderAsync(PreparedAnnouncement announcement, PluginSettings.AsyncPlaceholderSettings async,
+                             List<Player> recipients) {
+        ExecutorService executor = renderExecutor(async.threads());
+        // Still on the main thread
+        List<String> worldNames = worldNames(announcement, recipients);
+
+        List<CompletableFuture<List<RecipientPayload>>> batches = new ArrayList<>();
+        for (int start = 0; start < recipients.size(); start += RENDER_BATCH_SIZE) {
+            int end = Math.min(start + RENDER_BATCH_SIZE, recipients.size());
+            List<Player> batch = recipients.subList(start, end);
+            List<String> batchWorlds = worldNames != null ? worldNames.subList(start, end) : null;
+            batches.add(CompletableFuture.supplyAsync(() -> renderAll(announcement, batch, batchWorlds), executor));
+        }
+
+        CompletableFuture.allOf(batches.toArray(new CompletableFuture[0])).whenComplete((ignored, error) -> {
+            if (!plugin.isEnabled()) {
+                return;
+            }
+
+            scheduler.runGlobal(() -> {
+                if (error != null) {
+                    plugin.getLogger().log(Level.WARNING, "Async placeholder rendering failed, rendering on main thread", error);
+                    deliver(announcement, recipients, renderAll(announcement, recipients, worldNames));
+                    return;
+                }
+
+                // Batches complete in any order, but are joined back in recipient order
+                List<RecipientPayload> payloads = new ArrayList<>(recipients.size());
+                for (CompletableFuture<List<RecipientPayload>> batch : batches) {
+                    payloads.addAll(batch.join());
+                }
+                deliver(announcement, recipients, payloads);
+            });
+        });
+    }
+
+    /**
+     * Send rendered content (main thread, packets only)
+     * Large recipient sets can be spread over several ticks under a per-tick time budget
+     * @param payloads Per-recipient content aligned with recipients, empty if nothing is personalized
+     */
+    public void deliver(PreparedAnnouncement announcement, List<Player> recipients, List<RecipientPayload> payloads) {
+        if (recipients.isEmpty()) {
+            return;
+        }
+
+        PluginSettings.SpreadDeliverySettings spread = announcement.settings().spreadDelivery();
+        if (!spread.enabled() || recipients.size() < spread.minRecipients()) {
+            deliverSlice(announcement, recipients, payloads);
+            return;
+        }
+
+        SpreadDelivery delivery = new SpreadDelivery(this, announcement, recipients, payloads,
+            spread.tickBudgetMillis(), spread.maxSpreadTicks());
+        if (!delivery.step()) {
+            scheduler.runGlobalTimer(delivery::run, 1L, 1L);
+        }
+    }
+
+    /**
+     * Send rendered content to a slice of recipients
+     * Players that left since the announcement was rendered are skipped
+     */
+    void deliverSlice(PreparedAnnouncement announcement, List<Player> recipients, List<RecipientPayload> payloads) {
+        PluginSettings settings = announcement.settings();
+        boolean personalized = !payloads.isEmpty();
+
+        List<Player> online = new ArrayList<>(recipients.size());
+        List<RecipientPayload> onlinePayloads = personalized ? new ArrayList<>(payloads.size()) : List.of();
+        for (int i = 0; i < recipients.size(); i++) {
+            Player player = recipients.get(i);
+            if (player.isOnline()) {
+                online.add(player);
+                if (personalized) {
+                    onlinePayloads.add(payloads.get(i));
+                }
+            }
+        }
+        if (online.isEmpty()) {
+            return;
+        }
+
+        Audience audience = Audience.audience(online);
+        long start;
+
+        // Title
+        if (announcement.titleEnabled()) {
+            start = System.nanoTime();
+            if (announcement.sharedTitle() != null) {
+                audience.showTitle(announcement.sharedTitle());
+            } else {
+                for (RecipientPayload payload : onlinePayloads) {
+                    payload.player().showTitle(payload.title());
+                }
+            }
+            metrics.record(Stage.TITLE, start);
+            metrics.packetsSent(online.size());
+        }
+
+        // Chat (shared lines are broadcast in order)
+        if (announcement.chatEnabled()) {
+            start = System.nanoTime();
+            int messages = 0;
+            if (announcement.sharedChat() != null) {
+                for (Component line : announcement.sharedChat()) {
+                    audience.sendMessage(line);
+                }
+                messages = announcement.sharedChat().size() * online.size();
+            } else {
+                for (RecipientPayload payload : onlinePayloads) {
+                    for (Component line : payload.chat()) {
+                        payload.player().sendMessage(line);
+                    }
+                    messages += payload.chat().size();
+                }
+            }
+            metrics.record(Stage.CHAT, start);
+            metrics.packetsSent(messages);
+        }
+
+        // Boss bar
+        if (announcement.bossBarEnabled()) {
+            start = System.nanoTime();
+            Component sharedTitle = announcement.sharedBossBarTitle();
+            if (sharedTitle != null) {
+                for (Player player : online) {
+                    bossBarManager.sendBossBar(settings.bossBar(), player, sharedTitle);
+                }
+            } else {
+                for (RecipientPayload payload : onlinePayloads) {
+                    bossBarManager.sendBossBar(settings.bossBar(), payload.player(), payload.bossBarTitle());
+                }
+            }
+            metrics.record(Stage.BOSSBAR, start);
+            metrics.packetsSent(online.size());
+        }
+
+        // Sound (identical for everyone, played at each player's position)
+        if (settings.sound().enabled()) {
+            start = System.nanoTime();
+            audience.playSound(settings.sound().sound(), Sound.Emitter.self());
+            metrics.record(Stage.SOUND, start);
+            metrics.packetsSent(online.size());
+        }
+    }
+
+    /**
+     * Get the render executor, recreating it if the configured thread count changed
+     * 0 threads means one virtual thread per task
+     */
+    private synchronized ExecutorService renderExecutor(int threads) {
+        if (renderExecutor == null || renderThreads != threads) {
+            if (renderExecutor != null) {
+                renderExecutor.shutdown();
+            }
+            renderExecutor = threads <= 0
+                ? Executors.newVirtualThreadPerTaskExecutor()
+                : Executors.newFixedThreadPool(threads, Thread.ofPlatform().name("EasyAnnouncements-Render-", 0).daemon().factory());
+            renderThreads = threads;
+        }
+        return renderExecutor;
+    }
+
+    /**
+     * Stop the render executor
+     */
+    public synchronized void shutdown() {
+        if (renderExecutor != null) {
+            renderExecutor.shutdownNow();
+            renderExecutor = null;
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.eclipsestudios.announcements.delivery;
+
+import java.util.Locale;
+
+/**
+ * Who an announcement was addressed to and where it came from, used to route it to Discord channels
+ * @param world Lower-case world name for WORLD announcements, null otherwise
+ */
+public record AnnouncementScope(Target target, String world, Source source) {
+
+    public enum Target {
+        ALL,
+        WORLD,
+        PLAYER
+    }
+
+    public enum Source {
+        PLAYER,
+        CONSOLE,
+        DISCORD
+    }
+
+    public static AnnouncementScope all(Source source) {
+        return new AnnouncementScope(Target.ALL, null, source);
+    }
+
+    public static AnnouncementScope world(String world, Source source) {
+        return new AnnouncementScope(Target.WORLD, world.toLowerCase(Locale.ROOT), source);
+    }
+
+    public static AnnouncementScope player(Source source) {
+        return new AnnouncementScope(Target.PLAYER, null, source);
+    }
+}
@@ -0,0 +1,230 @@
+package com.eclipsestudios.announcements.delivery;
+
+import com.eclipsestudios.announcements.config.PluginSettings;
+import com.eclipsestudios.announcements.template.AnnouncementRenderer;
+import com.eclipsestudios.announcements.template.AnnouncementTemplate;
+import com.eclipsestudios.announcements.template.PreparedLine;
+import com.eclipsestudios.announcements.template.TemplateContext;
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.JoinConfiguration;
+import net.kyori.adventure.title.Title;
+import org.bukkit.entity.Player;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * One announcement with every enabled channel prepared
+ * Shared content is built once here, personalized content is rendered per recipient by {@link #render(Player, String)}
+ */
+public final class PreparedAnnouncement {
+
+    private final PluginSettings settings;
+    private final TemplateContext context;
+    private final AnnouncementRenderer renderer;
+
+    private final PreparedLine titleLine;
+    private final PreparedLine subtitleLine;
+    private final List<PreparedLine> chatLines;
+    private final PreparedLine bossBarLine;
+
+    // Shared content (null when disabled or personalized)
+    private final Title sharedTitle;
+    private final List<Component> sharedChat;
+
+    private PreparedAnnouncement(PluginSettings settings, TemplateContext context, AnnouncementRenderer renderer,
+                                 PreparedLine titleLine, PreparedLine subtitleLine, List<PreparedLine> chatLines,
+                                 PreparedLine bossBarLine) {
+        this.settings = settings;
+        this.context = context;
+        this.renderer = renderer;
+        this.titleLine = titleLine;
+        this.subtitleLine = subtitleLine;
+        this.chatLines = chatLines;
+        this.bossBarLine = bossBarLine;
+
+        // Player-independent titles are built once and shared by every recipient
+        this.sharedTitle = titleLine != null && titleLine.isShared() && subtitleLine.isShared()
+            ? Title.title(titleLine.shared(), subtitleLine.shared(), settings.title().times())
+            : null;
+
+        boolean chatShared = !chatLines.isEmpty() && chatLines.stream().allMatch(PreparedLine::isShared);
+        if (chatShared) {
+            List<Component> components = new ArrayList<>(chatLines.size());
+            for (PreparedLine line : chatLines) {
+                components.add(line.shared());
+            }
+            this.sharedChat = formatChat(components);
+        } else {
+            this.sharedChat = null;
+        }
+    }
+
+    /**
+     * Prepare all enabled channels for an announcement
+     * Static lines (borders, spacers) are deserialized exactly once here
+     */
+    public static PreparedAnnouncement prepare(AnnouncementRenderer renderer, PluginSettings settings,
+                                               TemplateContext context) {
+        PreparedLine titleLine = null;
+        PreparedLine subtitleLine = null;
+        if (settings.title().enabled()) {
+            titleLine = renderer.prepare(settings.title().title(), context);
+            subtitleLine = renderer.prepare(settings.title().subtitle(), context);
+        }
+
+        List<PreparedLine> chatLines = new ArrayList<>();
+        if (settings.chat().enabled()) {
+            for (AnnouncementTemplate line : settings.chat().lines()) {
+                chatLines.add(renderer.prepare(line, context));
+            }
+        }
+
+        PreparedLine bossBarLine = settings.bossBar().enabled()
+            ? renderer.prepare(settings.bossBar().message(), context)
+            : null;
+
+        return new PreparedAnnouncement(settings, context, renderer, titleLine, subtitleLine, chatLines, bossBarLine);
+    }
+
+    /**
+     * Render the personalized parts for one recipient
+     * Shared parts are left null in the payload and broadcast by the dispatcher
+     * @param worldName The recipient's world, read on the thread that owns the player (see {@link #usesWorld()})
+     */
+    public RecipientPayload render(Player player, String worldName) {
+        Title title = null;
+        if (titleLine != null && sharedTitle == null) {
+            title = Title.title(titleLine.forViewer(player, worldName), subtitleLine.forViewer(player, worldName),
+                settings.title().times());
+        }
+
+        List<Component> chat = null;
+        if (!chatLines.isEmpty() && sharedChat == null) {
+            List<Component> components = new ArrayList<>(chatLines.size());
+            for (PreparedLine line : chatLines) {
+                components.add(line.forViewer(player, worldName));
+            }
+            chat = formatChat(components);
+        }
+
+        Component bossBarTitle = bossBarLine != null && !bossBarLine.isShared()
+            ? bossBarLine.forViewer(player, worldName)
+            : null;
+
+        return new RecipientPayload(player, title, chat, bossBarTitle);
+    }
+
+    /**
+     * Apply the chat delivery mode to the rendered lines
+     */
+    private List<Component> formatChat(List<Component> lines) {
+        if (settings.chat().delivery() == PluginSettings.ChatDelivery.SINGLE) {
+            return List.of(Component.join(JoinConfiguration.newlines(), lines));
+        }
+        return lines;
+    }
+
+    /**
+     * True if any channel has per-player content
+     */
+    public boolean isPersonalized() {
+        return (titleLine != null && sharedTitle == null)
+            || (!chatLines.isEmpty() && sharedChat == null)
+            || (bossBarLine != null && !bossBarLine.isShared());
+    }
+
+    /**
+     * True if a personalized line shows the recipient's world, so render needs each recipient's world name
+     */
+    public boolean usesWorld() {
+        for (PreparedLine line : personalizedLines()) {
+            if (line.template().usesWorld()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Record the PlaceholderAPI time of the batch just rendered on this thread
+     */
+    public void finishRenderBatch() {
+        renderer.recordPlaceholderTime();
+    }
+
+    private List<PreparedLine> personalizedLines() {
+        List<PreparedLine> lines = new ArrayList<>(chatLines.size() + 3);
+        for (PreparedLine line : chatLines) {
+            if (!line.isShared()) {
+                lines.add(line);
+            }
+        }
+        for (PreparedLine line : new PreparedLine[] {titleLine, subtitleLine, bossBarLine}) {
+            if (line != null && !line.isShared()) {
+                lines.add(line);
+            }
+        }
+        return lines;
+    }
+
+    /**
+     * PlaceholderAPI expansion identifiers that personalized lines will resolve
+     * Includes tokens typed into the announcement message itself
+     */
+    public Set<String> placeholderIdentifiers() {
+        Set<String> identifiers = new HashSet<>();
+        boolean usesMessage = false;
+        for (PreparedLine line : personalizedLines()) {
+            identifiers.addAll(line.template().placeholderIdentifiers());
+            usesMessage |= line.template().usesMessage();
+        }
+        if (usesMessage && context.messageHasPlaceholders()) {
+            identifiers.addAll(AnnouncementTemplate.compile(context.message()).placeholderIdentifiers());
+        }
+        return identifiers;
+    }
+
+    public PluginSettings settings() {
+        return settings;
+    }
+
+    public TemplateContext context() {
+        return context;
+    }
+
+    public boolean titleEnabled() {
+        return titleLine != null;
+    }
+
+    public boolean chatEnabled() {
+        return !chatLines.isEmpty();
+    }
+
+    public boolean bossBarEnabled() {
+        return bossBarLine != null;
+    }
+
+    /**
+     * Title shown to every recipient, null if personalized or disabled
+     */
+    public Title sharedTitle() {
+        return sharedTitle;
+    }
+
+    /**
+     * Chat messages sent to every recipient, null if personalized or disabled
+     */
+    public List<Component> sharedChat() {
+        return sharedChat;
+    }
+
+    /**
+     * Boss bar title shown to every recipient, null if personalized or disabled
+     */
+    public Component sharedBossBarTitle() {
+        return bossBarLine != null && bossBarLine.isShared() ? bossBarLine.shared() : null;
+    }
+}
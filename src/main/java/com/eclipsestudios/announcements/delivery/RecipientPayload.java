@@ -0,0 +1,14 @@
+package com.eclipsestudios.announcements.delivery;
+
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.title.Title;
+import org.bukkit.entity.Player;
+
+import java.util.List;
+
+/**
+ * Fully rendered per-player content for one recipient
+ * Fields are null where the announcement uses shared content (or the channel is disabled)
+ */
+public record RecipientPayload(Player player, Title title, List<Component> chat, Component bossBarTitle) {
+}
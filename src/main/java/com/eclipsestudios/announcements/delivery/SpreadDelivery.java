@@ -0,0 +1,71 @@
+package com.eclipsestudios.announcements.delivery;
+
+import com.eclipsestudios.announcements.scheduler.TaskHandle;
+import org.bukkit.entity.Player;
+
+import java.util.List;
+
+/**
+ * Delivers an announcement to a large recipient set in slices,
+ * staying under a per-tick time budget and finishing within a bounded number of ticks
+ */
+class SpreadDelivery {
+
+    // Recipients delivered between budget checks
+    private static final int SLICE_SIZE = 16;
+
+    private final AnnouncementDispatcher dispatcher;
+    private final PreparedAnnouncement announcement;
+    private final List<Player> recipients;
+    private final List<RecipientPayload> payloads;
+    private final long budgetNanos;
+    private final int maxTicks;
+
+    private int index = 0;
+    private int tick = 0;
+
+    SpreadDelivery(AnnouncementDispatcher dispatcher, PreparedAnnouncement announcement, List<Player> recipients,
+                   List<RecipientPayload> payloads, double budgetMillis, int maxTicks) {
+        this.dispatcher = dispatcher;
+        this.announcement = announcement;
+        this.recipients = recipients;
+        this.payloads = payloads;
+        this.budgetNanos = (long) (budgetMillis * 1_000_000L);
+        this.maxTicks = Math.max(1, maxTicks);
+    }
+
+    /**
+     * Timer body: deliver this tick's share and stop once everyone has it
+     */
+    void run(TaskHandle task) {
+        if (step()) {
+            task.cancel();
+        }
+    }
+
+    /**
+     * Deliver slices until the tick budget is used up
+     * The last allowed tick delivers everything that is left, so total spread time is bounded
+     * Returns true once every recipient has been delivered to
+     */
+    boolean step() {
+        long start = System.nanoTime();
+        boolean lastTick = ++tick >= maxTicks;
+
+        while (index < recipients.size()) {
+            int end = Math.min(index + SLICE_SIZE, recipients.size());
+            dispatcher.deliverSlice(
+                announcement,
+                recipients.subList(index, end),
+                payloads.isEmpty() ? List.of() : payloads.subList(index, end)
+            );
+            index = end;
+
+            if (!lastTick && System.nanoTime() - start >= budgetNanos) {
+                break;
+            }
+        }
+
+        return index >= recipients.size();
+    }
+}
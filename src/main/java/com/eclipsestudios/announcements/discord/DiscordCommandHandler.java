@@ -1,25 +1,26 @@
 package com.eclipsestudios.announcements.discord;
 
 import com.eclipsestudios.announcements.EclipseStudiosAnnouncements;
+import com.eclipsestudios.announcements.config.DiscordSettings;
+import com.eclipsestudios.announcements.config.LongIdSet;
+import com.eclipsestudios.announcements.metrics.AnnouncementMetrics;
+import com.eclipsestudios.announcements.metrics.AnnouncementMetrics.CommandRejection;
 import github.scarsz.discordsrv.DiscordSRV;
 import github.scarsz.discordsrv.dependencies.jda.api.JDA;
 import github.scarsz.discordsrv.dependencies.jda.api.entities.Member;
 import github.scarsz.discordsrv.dependencies.jda.api.entities.Message;
 import github.scarsz.discordsrv.dependencies.jda.api.entities.Role;
 import github.scarsz.discordsrv.dependencies.jda.api.entities.ChannelType;
+import github.scarsz.discordsrv.dependencies.jda.api.events.guild.member.GuildMemberRoleAddEvent;
+import github.scarsz.discordsrv.dependencies.jda.api.events.guild.member.GuildMemberRoleRemoveEvent;
 import github.scarsz.discordsrv.dependencies.jda.api.events.interaction.SlashCommandEvent;
 import github.scarsz.discordsrv.dependencies.jda.api.events.message.MessageReceivedEvent;
 import github.scarsz.discordsrv.dependencies.jda.api.hooks.ListenerAdapter;
 import github.scarsz.discordsrv.dependencies.jda.api.interactions.commands.OptionType;
 import github.scarsz.discordsrv.dependencies.jda.api.interactions.commands.build.CommandData;
 import org.bukkit.Bukkit;
-import org.bukkit.World;
-import org.bukkit.configuration.file.FileConfiguration;
-import org.bukkit.entity.Player;
 
-import java.util.ArrayList;
-import java.util.Collection;
-import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Handles Discord slash commands and prefix commands for sending announcements from Discord
@@ -28,11 +29,14 @@ import java.util.List;
 public class DiscordCommandHandler extends ListenerAdapter {
     
     private final EclipseStudiosAnnouncements plugin;
-    private final FileConfiguration discordConfig;
+    private final PermissionCache permissions = new PermissionCache();
+    private final DiscordCommandQueue commandQueue;
+    // Set once the listener is registered, reloads re-register the slash command through it
+    private volatile JDA jda;
     
-    public DiscordCommandHandler(EclipseStudiosAnnouncements plugin, FileConfiguration discordConfig) {
+    public DiscordCommandHandler(EclipseStudiosAnnouncements plugin) {
         this.plugin = plugin;
-        this.discordConfig = discordConfig;
+        this.commandQueue = new DiscordCommandQueue(plugin);
     }
     
     /**
@@ -47,55 +51,82 @@ public class DiscordCommandHandler extends ListenerAdapter {
                 return;
             }
             
+            DiscordSettings.CommandSettings settings = plugin.getDiscordSettings().commands();
+            
             // Register event listener for both slash and prefix commands
             jda.addEventListener(this);
+            this.jda = jda;
             
             // Register slash command if enabled
-            if (discordConfig.getBoolean("discord-commands.slash-commands.enabled", true)) {
-                String commandName = discordConfig.getString("discord-commands.slash-commands.command-name", "announce");
-                String commandDesc = discordConfig.getString("discord-commands.slash-commands.command-description", 
-                    "Send an announcement to Minecraft server");
-                
-                CommandData commandData = new CommandData(commandName, commandDesc)
-                        .addOption(OptionType.STRING, "message", "The announcement message", true)
-                        .addOption(OptionType.STRING, "target", "Target world or 'all' for all players", false);
-                
-                jda.upsertCommand(commandData).queue(
-                    success -> plugin.getLogger().info("Discord slash command /" + commandName + " registered successfully!"),
-                    error -> plugin.getLogger().warning("Failed to register Discord slash command: " + error.getMessage())
-                );
+            if (settings.slashEnabled()) {
+                upsertSlashCommand(jda, settings);
             }
             
             // Log prefix command status
-            if (discordConfig.getBoolean("discord-commands.prefix-commands.enabled", true)) {
-                String prefix = discordConfig.getString("discord-commands.prefix-commands.prefix", "!");
-                String commandName = discordConfig.getString("discord-commands.prefix-commands.command-name", "announce");
-                plugin.getLogger().info("Discord prefix command " + prefix + commandName + " listener registered!");
+            if (settings.prefixEnabled()) {
+                plugin.getLogger().info("Discord prefix command " + settings.prefixCommand() + " listener registered!");
             }
-            
+        
         } catch (Exception e) {
             plugin.getLogger().warning("Failed to register Discord commands: " + e.getMessage());
             e.printStackTrace();
         }
     }
     
+    private void upsertSlashCommand(JDA jda, DiscordSettings.CommandSettings settings) {
+        String commandName = settings.slashCommandName();
+        String commandDesc = settings.slashCommandDescription();
+        
+        CommandData commandData = new CommandData(commandName, commandDesc)
+                .addOption(OptionType.STRING, "message", "The announcement message", true)
+                .addOption(OptionType.STRING, "target", "Target world or 'all' for all players", false);
+        
+        jda.upsertCommand(commandData).queue(
+            success -> plugin.getLogger().info("Discord slash command /" + commandName + " registered successfully!"),
+            error -> plugin.getLogger().warning("Failed to register Discord slash command: " + error.getMessage())
+        );
+    }
+    
+    /**
+     * Apply reloaded command settings
+     * Everything else is read from the current settings on each command, only the slash command
+     * registered with Discord has to be updated when its name or description changed
+     */
+    public void settingsChanged(DiscordSettings.CommandSettings previous, DiscordSettings.CommandSettings current) {
+        JDA jda = this.jda;
+        if (jda == null) {
+            return;
+        }
+        
+        boolean renamed = !previous.slashCommandName().equals(current.slashCommandName());
+        if (previous.slashEnabled() && (!current.slashEnabled() || renamed)) {
+            String oldName = previous.slashCommandName();
+            jda.retrieveCommands().queue(commands -> commands.stream()
+                .filter(command -> command.getName().equals(oldName))
+                .forEach(command -> command.delete().queue()));
+        }
+        if (current.slashEnabled() && (!previous.slashEnabled() || renamed
+                || !previous.slashCommandDescription().equals(current.slashCommandDescription()))) {
+            upsertSlashCommand(jda, current);
+        }
+    }
+    
     /**
      * Handle Discord slash command events
      */
     @Override
     public void onSlashCommand(SlashCommandEvent event) {
-        if (!discordConfig.getBoolean("discord-commands.slash-commands.enabled", true)) {
+        DiscordSettings.CommandSettings settings = plugin.getDiscordSettings().commands();
+        if (!settings.slashEnabled()) {
             return;
         }
         
-        String commandName = discordConfig.getString("discord-commands.slash-commands.command-name", "announce");
-        
-        if (!event.getName().equals(commandName)) {
+        if (!event.getName().equals(settings.slashCommandName())) {
             return;
         }
         
         // Check permissions
-        if (!hasPermission(event.getMember())) {
+        if (!hasPermission(settings, event.getMember())) {
             event.reply("❌ You don't have permission to use this command!").setEphemeral(true).queue();
             return;
         }
@@ -109,67 +140,72 @@ public class DiscordCommandHandler extends ListenerAdapter {
             return;
         }
         
-        // Defer reply so we have more time to process
-        event.deferReply().setEphemeral(!discordConfig.getBoolean("discord-commands.options.show-confirmation", true)).queue();
-        
-        // Send announcement on main thread
-        String userId = event.getUser().getId();
-        String finalMessage = message;
-        String finalTarget = target;
-        Bukkit.getScheduler().runTask(plugin, () -> {
-            boolean success = handleDiscordAnnouncement(finalMessage, finalTarget, userId);
-            
-            if (success && discordConfig.getBoolean("discord-commands.options.show-confirmation", true)) {
-                String confirmMsg = discordConfig.getString("discord-commands.options.confirmation-format", 
-                    "✅ Announcement sent to **%target%**: %message%")
-                    .replace("%target%", finalTarget)
-                    .replace("%message%", finalMessage);
-                event.getHook().editOriginal(confirmMsg).queue();
-            } else if (!success) {
-                event.getHook().editOriginal("❌ Failed to send announcement. Check console for errors.").queue();
+        // Defer reply first so Discord gets its acknowledgement in time,
+        // the outcome is sent as the deferred response once queueing is decided
+        long userId = event.getUser().getIdLong();
+        event.deferReply().setEphemeral(!settings.showConfirmation()).queue(hook -> {
+            // Send announcement on main thread
+            DiscordCommandQueue.Offer offer = commandQueue.offer(settings, userId, message, target,
+                reply -> hook.editOriginal(reply).queue());
+            if (offer != DiscordCommandQueue.Offer.ACCEPTED) {
+                hook.editOriginal(rejectionReply(offer)).queue();
             }
         });
     }
     
     /**
      * Handle Discord prefix command messages
+     * Runs for every message the bot can see, so each check is as cheap as possible
+     * and everything not addressed to us is rejected before the message content is read
      */
     @Override
     public void onMessageReceived(MessageReceivedEvent event) {
+        AnnouncementMetrics metrics = plugin.getMetrics();
+        DiscordSettings.CommandSettings settings = plugin.getDiscordSettings().commands();
+        if (!settings.prefixEnabled()) {
+            return;
+        }
+        
         // Ignore bot messages
         if (event.getAuthor().isBot()) {
+            metrics.commandRejected(CommandRejection.BOT);
             return;
         }
         
-        if (!discordConfig.getBoolean("discord-commands.prefix-commands.enabled", true)) {
+        // Channel allowlist only applies to guild channels, DMs are governed by allow-in-dms
+        LongIdSet allowedChannels = settings.allowedChannelIds();
+        if (!allowedChannels.isEmpty() && event.isFromGuild()
+                && !allowedChannels.contains(event.getChannel().getIdLong())) {
+            metrics.commandRejected(CommandRejection.CHANNEL);
             return;
         }
         
-        String prefix = discordConfig.getString("discord-commands.prefix-commands.prefix", "!");
-        String commandName = discordConfig.getString("discord-commands.prefix-commands.command-name", "announce");
-        String fullCommand = prefix + commandName;
-        
+        String fullCommand = settings.prefixCommand();
         Message message = event.getMessage();
         String content = message.getContentRaw();
         
         // Check if message starts with our command
         if (!content.startsWith(fullCommand)) {
+            metrics.commandRejected(CommandRejection.PREFIX);
             return;
         }
         
         // Check if in DM and if DMs are allowed
         if (event.getChannelType() == ChannelType.PRIVATE) {
-            if (!discordConfig.getBoolean("discord-commands.prefix-commands.allow-in-dms", false)) {
+            if (!settings.allowInDms()) {
+                metrics.commandRejected(CommandRejection.DM);
                 message.reply("❌ This command cannot be used in DMs!").queue();
                 return;
             }
         }
         
         // Check permissions
-        if (!hasPermission(event.getMember())) {
+        if (!hasPermission(settings, event.getMember())) {
+            metrics.commandRejected(CommandRejection.PERMISSION);
             message.reply("❌ You don't have permission to use this command!").queue();
             return;
         }
+        metrics.commandAccepted();
         
         // Parse command arguments
         String args = content.substring(fullCommand.length()).trim();
@@ -184,7 +220,7 @@ public class DiscordCommandHandler extends ListenerAdapter {
         String target = "all";
         
         // Check if world selection is enabled and if there's a target specified
-        if (discordConfig.getBoolean("discord-commands.options.enable-world-selection", true)) {
+        if (settings.enableWorldSelection()) {
             String[] parts = args.split(" ", 2);
             if (parts.length == 2 && Bukkit.getWorld(parts[0]) != null) {
                 target = parts[0];
@@ -197,93 +233,78 @@ public class DiscordCommandHandler extends ListenerAdapter {
         }
         
         // Send announcement on main thread
-        String userId = event.getAuthor().getId();
-        String finalAnnouncementMsg = announcementMsg;
-        String finalTarget = target;
-        Bukkit.getScheduler().runTask(plugin, () -> {
-            boolean success = handleDiscordAnnouncement(finalAnnouncementMsg, finalTarget, userId);
-            
-            if (success && discordConfig.getBoolean("discord-commands.options.show-confirmation", true)) {
-                String confirmMsg = discordConfig.getString("discord-commands.options.confirmation-format", 
-                    "✅ Announcement sent to **%target%**: %message%")
-                    .replace("%target%", finalTarget)
-                    .replace("%message%", finalAnnouncementMsg);
-                message.reply(confirmMsg).queue();
-            } else if (!success) {
-                message.reply("❌ Failed to send announcement. Check console for errors.").queue();
-            }
-        });
+        DiscordCommandQueue.Offer offer = commandQueue.offer(settings, event.getAuthor().getIdLong(), announcementMsg,
+            target, reply -> message.reply(reply).queue());
+        if (offer != DiscordCommandQueue.Offer.ACCEPTED) {
+            message.reply(rejectionReply(offer)).queue();
+        }
     }
     
     /**
-     * Send announcement from Discord command
-     * Returns true if successful, false otherwise
+     * Reply for a command the queue didn't take, counted in the rejection metrics
      */
-    private boolean handleDiscordAnnouncement(String message, String target, String senderId) {
-        try {
-            // Determine targets
-            Collection<Player> targets = new ArrayList<>();
-            
-            boolean perWorldEnabled = plugin.getConfig().getBoolean("per-world.enabled", false);
-            boolean enableWorldSelection = discordConfig.getBoolean("discord-commands.options.enable-world-selection", true);
-            
-            if (target == null || target.equalsIgnoreCase("all")) {
-                targets = new ArrayList<>(Bukkit.getOnlinePlayers());
-            } else if (enableWorldSelection && perWorldEnabled) {
-                World world = Bukkit.getWorld(target);
-                if (world != null) {
-                    targets = new ArrayList<>(world.getPlayers());
-                } else {
-                    plugin.getLogger().warning("World '" + target + "' not found for Discord announcement");
-                    return false;
-                }
-            } else {
-                targets = new ArrayList<>(Bukkit.getOnlinePlayers());
-            }
-            
-            if (targets.isEmpty()) {
-                plugin.getLogger().warning("No players online to send Discord announcement to");
-                return false;
-            }
-            
-            // Send announcement
-            plugin.sendAnnouncement(targets, message, null);
-            plugin.getLogger().info("Announcement sent from Discord (User ID: " + senderId + ") to " + targets.size() + " player(s)");
-            return true;
-            
-        } catch (Exception e) {
-            plugin.getLogger().warning("Error sending Discord announcement: " + e.getMessage());
-            e.printStackTrace();
-            return false;
+    private String rejectionReply(DiscordCommandQueue.Offer offer) {
+        if (offer == DiscordCommandQueue.Offer.BUSY) {
+            plugin.getMetrics().commandRejected(CommandRejection.BUSY);
+            return "⏳ The server is busy, please try again in a moment.";
         }
+        plugin.getMetrics().commandRejected(CommandRejection.RATE_LIMIT);
+        return "⏳ You're sending announcements too fast, please wait a few seconds.";
+    }
+    
+    /**
+     * Forget cached permission decisions when a member's roles change
+     */
+    @Override
+    public void onGuildMemberRoleAdd(GuildMemberRoleAddEvent event) {
+        permissions.invalidate(event.getMember().getIdLong());
+    }
+    
+    @Override
+    public void onGuildMemberRoleRemove(GuildMemberRoleRemoveEvent event) {
+        permissions.invalidate(event.getMember().getIdLong());
     }
     
     /**
      * Check if Discord member has permission to use command
+     * Decisions are cached per member for permission cache-seconds
      */
-    private boolean hasPermission(Member member) {
+    private boolean hasPermission(DiscordSettings.CommandSettings settings, Member member) {
         if (member == null) {
             return false;
         }
         
-        boolean adminOnly = discordConfig.getBoolean("discord-commands.permissions.admin-only", true);
-        if (!adminOnly) {
+        if (!settings.adminOnly()) {
             return true;
         }
         
-        String userId = member.getId();
+        long memberId = member.getIdLong();
+        long guildId = member.getGuild().getIdLong();
+        long now = System.nanoTime();
+        int cached = permissions.get(settings, guildId, memberId, now);
+        if (cached >= 0) {
+            return cached == 1;
+        }
         
+        boolean allowed = checkPermission(settings, member);
+        if (settings.permissionCacheSeconds() > 0) {
+            long ttl = TimeUnit.SECONDS.toNanos(settings.permissionCacheSeconds());
+            permissions.put(settings, guildId, memberId, allowed, now + ttl);
+        }
+        return allowed;
+    }
+    
+    private boolean checkPermission(DiscordSettings.CommandSettings settings, Member member) {
         // Check user IDs
-        List<String> allowedUserIds = discordConfig.getStringList("discord-commands.permissions.allowed-user-ids");
-        if (allowedUserIds != null && allowedUserIds.contains(userId)) {
+        if (settings.allowedUserIds().contains(member.getIdLong())) {
             return true;
         }
         
         // Check role IDs
-        List<String> allowedRoleIds = discordConfig.getStringList("discord-commands.permissions.allowed-role-ids");
-        if (allowedRoleIds != null && !allowedRoleIds.isEmpty()) {
+        LongIdSet allowedRoleIds = settings.allowedRoleIds();
+        if (!allowedRoleIds.isEmpty()) {
             for (Role role : member.getRoles()) {
-                if (allowedRoleIds.contains(role.getId())) {
+                if (allowedRoleIds.contains(role.getIdLong())) {
                     return true;
                 }
             }
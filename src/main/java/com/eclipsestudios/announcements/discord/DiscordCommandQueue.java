@@ -0,0 +1,254 @@
+package com.eclipsestudios.announcements.discord;
+
+import com.eclipsestudios.announcements.EclipseStudiosAnnouncements;
+import com.eclipsestudios.announcements.config.DiscordSettings;
+import com.eclipsestudios.announcements.delivery.AnnouncementScope;
+import com.eclipsestudios.announcements.scheduler.TaskHandle;
+import org.bukkit.Bukkit;
+import org.bukkit.World;
+import org.bukkit.entity.Player;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Hands announcements requested from Discord to the main thread
+ * JDA threads add commands to a bounded lock-free queue, one repeating main-thread task drains
+ * a limited number per tick, so a flood of Discord commands can neither pile up scheduler tasks
+ * nor stall a tick. Commands for the same target share one recipient lookup, and identical
+ * announcements in the same drain are only sent once
+ */
+final class DiscordCommandQueue {
+
+    /**
+     * Outcome of queueing a command
+     */
+    enum Offer {
+        ACCEPTED,
+        // The user sent a command too recently
+        RATE_LIMITED,
+        // Too many commands are waiting
+        BUSY
+    }
+
+    private final EclipseStudiosAnnouncements plugin;
+
+    private final Queue<Command> queue = new ConcurrentLinkedQueue<>();
+    // Reserved before adding, so the bound holds with any number of producers
+    private final AtomicInteger size = new AtomicInteger();
+    private final Map<Long, Long> lastAccepted = new ConcurrentHashMap<>();
+    private final AtomicBoolean tickerRunning = new AtomicBoolean();
+
+    DiscordCommandQueue(EclipseStudiosAnnouncements plugin) {
+        this.plugin = plugin;
+    }
+
+    /**
+     * Queue an announcement for the next tick
+     * @param reply Receives the confirmation or failure text on the main thread
+     */
+    Offer offer(DiscordSettings.CommandSettings settings, long userId, String message, String target,
+                Consumer<String> reply) {
+        DiscordSettings.CommandQueueSettings queueSettings = settings.queue();
+        if (size.incrementAndGet() > queueSettings.maxQueued()) {
+            size.decrementAndGet();
+            return Offer.BUSY;
+        }
+
+        if (queueSettings.userCooldownSeconds() > 0
+                && !startCooldown(userId, TimeUnit.SECONDS.toNanos(queueSettings.userCooldownSeconds()))) {
+            size.decrementAndGet();
+            return Offer.RATE_LIMITED;
+        }
+
+        queue.add(new Command(settings, userId, message, target, reply));
+        ensureTicker();
+        return Offer.ACCEPTED;
+    }
+
+    /**
+     * Record a command from the user unless their previous one is within the cooldown
+     * Slash commands are offered from JDA's callback pool and prefix commands from the event thread,
+     * so the same user can be checked from two threads at once
+     * @return True if the command may be queued
+     */
+    private boolean startCooldown(long userId, long cooldownNanos) {
+        long now = System.nanoTime();
+        Long previous = lastAccepted.putIfAbsent(userId, now);
+        while (previous != null) {
+            if (now - previous < cooldownNanos) {
+                return false;
+            }
+            if (lastAccepted.replace(userId, previous, now)) {
+                return true;
+            }
+            // Another command from the user won the race, or the entry expired meanwhile
+            previous = lastAccepted.putIfAbsent(userId, now);
+        }
+        return true;
+    }
+
+    private void ensureTicker() {
+        if (tickerRunning.compareAndSet(false, true)) {
+            plugin.getTaskScheduler().runGlobalTimer(this::tick, 1L, 1L);
+        }
+    }
+
+    /**
+     * Send up to max-per-tick queued commands
+     */
+    private void tick(TaskHandle task) {
+        List<Command> batch = new ArrayList<>();
+        int limit = plugin.getDiscordSettings().commands().queue().maxPerTick();
+        Command command;
+        while (batch.size() < limit && (command = queue.poll()) != null) {
+            size.decrementAndGet();
+            batch.add(command);
+        }
+        if (!batch.isEmpty()) {
+            run(batch);
+        }
+
+        if (queue.isEmpty()) {
+            task.cancel();
+            tickerRunning.set(false);
+            expireCooldowns();
+            // A command may have been queued after the check above
+            if (!queue.isEmpty()) {
+                ensureTicker();
+            }
+        }
+    }
+
+    private void run(List<Command> batch) {
+        // Same target and message: one announcement, every sender gets the confirmation
+        Map<Announcement, List<Command>> announcements = new LinkedHashMap<>();
+        for (Command command : batch) {
+            announcements.computeIfAbsent(new Announcement(targetKey(command), command.message()),
+                key -> new ArrayList<>(1)).add(command);
+        }
+
+        Map<String, Recipients> recipients = new HashMap<>();
+        for (Map.Entry<Announcement, List<Command>> entry : announcements.entrySet()) {
+            Announcement announcement = entry.getKey();
+            List<Command> commands = entry.getValue();
+            boolean success = send(announcement,
+                recipients.computeIfAbsent(announcement.target(), this::resolve), commands);
+
+            for (Command command : commands) {
+                DiscordSettings.CommandSettings settings = command.settings();
+                if (success && settings.showConfirmation()) {
+                    command.reply().accept(settings.confirmationFormat()
+                        .replace("%target%", command.target())
+                        .replace("%message%", command.message()));
+                } else if (!success) {
+                    command.reply().accept("❌ Failed to send announcement. Check console for errors.");
+                }
+            }
+        }
+    }
+
+    /**
+     * Send one announcement from Discord
+     * Returns true if successful, false otherwise
+     */
+    private boolean send(Announcement announcement, Recipients recipients, List<Command> commands) {
+        try {
+            if (recipients == null) {
+                plugin.getLogger().warning("World '" + announcement.target() + "' not found for Discord announcement");
+                return false;
+            }
+            if (recipients.players().isEmpty()) {
+                plugin.getLogger().warning("No players online to send Discord announcement to");
+                return false;
+            }
+
+            plugin.sendAnnouncement(recipients.players(), announcement.message(), null, recipients.scope());
+            plugin.getLogger().info("Announcement sent from Discord (User ID: " + userIds(commands) + ") to "
+                + recipients.players().size() + " player(s)");
+            return true;
+
+        } catch (Exception e) {
+            plugin.getLogger().warning("Error sending Discord announcement: " + e.getMessage());
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    /**
+     * Target a command resolves to, commands with the same key reach the same players
+     */
+    private String targetKey(Command command) {
+        String target = command.target();
+        if (target == null || target.equalsIgnoreCase("all")) {
+            return "all";
+        }
+        if (!command.settings().enableWorldSelection() || !plugin.getSettings().perWorld().enabled()) {
+            return "all";
+        }
+        return target;
+    }
+
+    /**
+     * Players and scope for a target key, null if the world doesn't exist
+     */
+    private Recipients resolve(String target) {
+        if (target.equals("all")) {
+            // Only read on this thread, the dispatcher copies the recipients before rendering or spreading them
+            return new Recipients(Collections.unmodifiableCollection(Bukkit.getOnlinePlayers()),
+                AnnouncementScope.all(AnnouncementScope.Source.DISCORD));
+        }
+        World world = Bukkit.getWorld(target);
+        if (world == null) {
+            return null;
+        }
+        return new Recipients(world.getPlayers(),
+            AnnouncementScope.world(world.getName(), AnnouncementScope.Source.DISCORD));
+    }
+
+    private static String userIds(List<Command> commands) {
+        if (commands.size() == 1) {
+            return Long.toString(commands.get(0).userId());
+        }
+        StringBuilder ids = new StringBuilder();
+        for (Command command : commands) {
+            if (ids.length() > 0) {
+                ids.append(", ");
+            }
+            ids.append(command.userId());
+        }
+        return ids.toString();
+    }
+
+    /**
+     * Forget users whose cooldown has passed, so the map only holds recent senders
+     */
+    private void expireCooldowns() {
+        int cooldownSeconds = plugin.getDiscordSettings().commands().queue().userCooldownSeconds();
+        long cooldown = TimeUnit.SECONDS.toNanos(cooldownSeconds);
+        long now = System.nanoTime();
+        lastAccepted.values().removeIf(accepted -> now - accepted >= cooldown);
+    }
+
+    private record Command(DiscordSettings.CommandSettings settings, long userId, String message, String target,
+                           Consumer<String> reply) {
+    }
+
+    private record Announcement(String target, String message) {
+    }
+
+    private record Recipients(Collection<Player> players, AnnouncementScope scope) {
+    }
+}
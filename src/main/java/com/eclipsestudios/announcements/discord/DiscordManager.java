@@ -1,175 +1,178 @@
 package com.eclipsestudios.announcements.discord;
 
 import com.eclipsestudios.announcements.EclipseStudiosAnnouncements;
-import github.scarsz.discordsrv.DiscordSRV;
-import github.scarsz.discordsrv.dependencies.jda.api.EmbedBuilder;
-import github.scarsz.discordsrv.dependencies.jda.api.entities.TextChannel;
-import org.bukkit.configuration.ConfigurationSection;
-import org.bukkit.configuration.file.FileConfiguration;
+import com.eclipsestudios.announcements.config.DiscordSettings;
+import com.eclipsestudios.announcements.delivery.AnnouncementScope;
+import com.eclipsestudios.announcements.metrics.AnnouncementMetrics;
+import com.eclipsestudios.announcements.metrics.AnnouncementMetrics.Stage;
+import github.scarsz.discordsrv.dependencies.jda.api.entities.MessageEmbed;
 import org.bukkit.entity.Player;
 
-import java.awt.Color;
-import java.time.Instant;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.logging.Level;
 
 /**
  * Manages Discord integration with fully customizable embeds
+ * The static part of the embed and the channel handles are kept between sends
+ * Announcements are routed to one or more channels, each with its own coalescing, rate-limited
+ * outbound queue so a slow channel never holds up the others or the calling thread
+ * Channels are sent through DiscordSRV, webhook URLs over HTTP (which also works without DiscordSRV)
  */
 public class DiscordManager {
     
     private final EclipseStudiosAnnouncements plugin;
-    private final FileConfiguration discordConfig;
+    private final boolean discordSRVAvailable;
+    // Shared by every outbox, flushes only hand requests to JDA or the HTTP client and never block
+    private final ScheduledExecutorService executor;
+    private final Map<String, DiscordOutbox<?>> outboxes = new ConcurrentHashMap<>();
+    private final RequestLimiter webhookLimiter;
+    private HttpClient httpClient;
+    private boolean missingDiscordSRVReported;
+    // Replaced as a whole, so a send sees either the old or the new prototype
+    private volatile EmbedPrototype prototype;
+    private volatile WebhookEmbedPrototype webhookPrototype;
     
-    public DiscordManager(EclipseStudiosAnnouncements plugin, FileConfiguration discordConfig) {
+    /**
+     * @param discordSRVAvailable False to only send to webhooks (DiscordSRV classes are never touched)
+     */
+    public DiscordManager(EclipseStudiosAnnouncements plugin, boolean discordSRVAvailable) {
         this.plugin = plugin;
-        this.discordConfig = discordConfig;
+        this.discordSRVAvailable = discordSRVAvailable;
+        this.executor = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("EasyAnnouncements-Discord").daemon().factory());
+        this.webhookLimiter = new RequestLimiter(() -> plugin.getDiscordSettings().webhook().maxInFlight());
+        plugin.getMetrics().trackDiscordQueue(() -> {
+            int depth = 0;
+            for (DiscordOutbox<?> outbox : outboxes.values()) {
+                depth += outbox.size();
+            }
+            return depth;
+        });
     }
     
     /**
      * Send announcement to Discord with fully customizable embed
+     * @param settings discord.yml generation the announcement was sent with
      */
-    public void sendToDiscord(String message, Player sender, int playerCount) {
-        if (!discordConfig.getBoolean("discord.enabled", false)) {
+    public void sendToDiscord(DiscordSettings settings, String message, Player sender, int playerCount,
+                              AnnouncementScope scope) {
+        if (!settings.enabled()) {
             return;
         }
         
-        if (!discordConfig.getBoolean("embed.enabled", true)) {
+        if (!settings.embed().enabled()) {
             return;
         }
         
         try {
-            String channelId = discordConfig.getString("discord.channel-id", "");
-            if (channelId.isEmpty() || channelId.equals("YOUR_CHANNEL_ID_HERE")) {
-                plugin.getLogger().warning("Discord channel ID not configured! Please set discord.channel-id in discord.yml");
-                return;
-            }
-            
-            TextChannel channel = DiscordSRV.getPlugin().getJda().getTextChannelById(channelId);
-            if (channel == null) {
-                plugin.getLogger().warning("Discord channel not found with ID: " + channelId);
+            List<String> destinations = DiscordRouter.channelsFor(settings, scope);
+            if (destinations.isEmpty()) {
+                // Nothing configured (already reported when discord.yml was compiled) or no route matches
                 return;
             }
             
-            EmbedBuilder embed = buildEmbed(message, sender, playerCount);
-            
-            channel.sendMessageEmbeds(embed.build()).queue();
+            AnnouncementMetrics metrics = plugin.getMetrics();
+            long buildStart = System.nanoTime();
+            EmbedContent content = EmbedContent.render(settings.embed(), message, sender, playerCount);
+            Object channelEmbed = null;
+            WebhookEmbed webhookEmbed = null;
             
+            // Each destination coalesces and paces its own messages
+            String dedupeKey = (sender != null ? sender.getName() : "") + '\n' + message;
+            for (String destination : destinations) {
+                URI webhookUri = settings.webhookUri(destination);
+                if (webhookUri != null) {
+                    if (webhookEmbed == null) {
+                        webhookEmbed = webhookPrototype(settings.embed()).fill(content);
+                    }
+                    webhookOutbox(destination, webhookUri).offer(webhookEmbed, dedupeKey, settings.outbound());
+                } else if (discordSRVAvailable) {
+                    if (channelEmbed == null) {
+                        channelEmbed = buildChannelEmbed(settings.embed(), content);
+                    }
+                    offerToChannel(destination, channelEmbed, dedupeKey, settings.outbound());
+                } else {
+                    reportMissingDiscordSRV();
+                }
+            }
+            metrics.record(Stage.DISCORD_BUILD, buildStart);
+        
         } catch (Exception e) {
+            plugin.getMetrics().discordFailed(1);
             plugin.getLogger().log(Level.WARNING, "Failed to send announcement to Discord", e);
         }
     }
     
     /**
-     * Build custom embed based on discord.yml configuration
+     * Send what is still queued and stop the outbound queues
      */
-    private EmbedBuilder buildEmbed(String message, Player sender, int playerCount) {
-        EmbedBuilder embed = new EmbedBuilder();
-        
-        // Color (HEX format)
-        String colorHex = discordConfig.getString("embed.color", "FFD700");
-        try {
-            Color color = Color.decode("#" + colorHex.replace("#", ""));
-            embed.setColor(color);
-        } catch (Exception e) {
-            embed.setColor(Color.decode("#FFD700")); // Default gold
+    public void shutdown() {
+        for (DiscordOutbox<?> outbox : outboxes.values()) {
+            outbox.close();
         }
-        
-        // Title
-        String title = discordConfig.getString("embed.title", "📢 Server Announcement");
-        if (title != null && !title.isEmpty()) {
-            embed.setTitle(title);
-        }
-        
-        // Description
-        String description = discordConfig.getString("embed.description", "%message%")
-            .replace("%message%", message);
-        embed.setDescription(description);
-        
-        // Timestamp
-        if (discordConfig.getBoolean("embed.show-timestamp", true)) {
-            embed.setTimestamp(Instant.now());
-        }
-        
-        // Author section
-        if (discordConfig.getBoolean("embed.author.enabled", true)) {
-            String authorName;
-            String authorIcon = null;
-            
-            if (sender != null && discordConfig.getBoolean("embed.author.show-player-name", true)) {
-                String format = discordConfig.getString("embed.author.format", "Sent by %player%");
-                authorName = format.replace("%player%", sender.getName());
-                
-                String iconUrl = discordConfig.getString("embed.author.icon-url", 
-                    "https://minotar.net/avatar/%player%/64.png");
-                authorIcon = iconUrl.replace("%player%", sender.getName());
-            } else {
-                String format = discordConfig.getString("embed.author.format", "Sent by %player%");
-                authorName = format.replace("%player%", "Server Console");
-            }
-            
-            if (authorIcon != null && !authorIcon.isEmpty()) {
-                embed.setAuthor(authorName, null, authorIcon);
-            } else {
-                embed.setAuthor(authorName);
-            }
-        }
-        
-        // Thumbnail (small image top right)
-        if (discordConfig.getBoolean("embed.thumbnail.enabled", false)) {
-            String thumbnailUrl = discordConfig.getString("embed.thumbnail.url", "");
-            if (!thumbnailUrl.isEmpty()) {
-                embed.setThumbnail(thumbnailUrl);
-            }
+        executor.shutdownNow();
+    }
+    
+    // JDA types stay inside these methods so nothing loads them when DiscordSRV isn't installed
+    
+    private Object buildChannelEmbed(DiscordSettings.EmbedSettings settings, EmbedContent content) {
+        EmbedPrototype current = prototype;
+        if (current == null || current.settings() != settings) {
+            current = EmbedPrototype.compile(settings);
+            prototype = current;
         }
-        
-        // Image (large image below description)
-        if (discordConfig.getBoolean("embed.image.enabled", false)) {
-            String imageUrl = discordConfig.getString("embed.image.url", "");
-            if (!imageUrl.isEmpty()) {
-                embed.setImage(imageUrl);
-            }
+        return current.fill(content).build();
+    }
+    
+    @SuppressWarnings("unchecked")
+    private void offerToChannel(String channelId, Object embed, String dedupeKey,
+                                DiscordSettings.OutboundSettings outbound) {
+        DiscordOutbox<MessageEmbed> outbox = (DiscordOutbox<MessageEmbed>) outboxes.computeIfAbsent(channelId,
+            id -> new DiscordOutbox<>(new JdaChannelTransport(id), executor, plugin.getMetrics(), plugin.getLogger()));
+        outbox.offer((MessageEmbed) embed, dedupeKey, outbound);
+    }
+    
+    @SuppressWarnings("unchecked")
+    private DiscordOutbox<WebhookEmbed> webhookOutbox(String url, URI uri) {
+        // The URL was validated when discord.yml was compiled, nothing here can throw with the token in it
+        return (DiscordOutbox<WebhookEmbed>) outboxes.computeIfAbsent(url, key -> new DiscordOutbox<>(
+            new WebhookTransport(uri, httpClient(), webhookLimiter, () -> plugin.getDiscordSettings().webhook()),
+            executor, plugin.getMetrics(), plugin.getLogger()));
+    }
+    
+    /**
+     * Webhook embed prototype for the current discord.yml snapshot, rebuilt after a reload
+     */
+    private WebhookEmbedPrototype webhookPrototype(DiscordSettings.EmbedSettings settings) {
+        WebhookEmbedPrototype current = webhookPrototype;
+        if (current == null || current.settings() != settings) {
+            current = WebhookEmbedPrototype.compile(settings);
+            webhookPrototype = current;
         }
-        
-        // Footer
-        if (discordConfig.getBoolean("embed.footer.enabled", true)) {
-            String footerText = discordConfig.getString("embed.footer.text", "Eciipse Studios™");
-            
-            // Add player count if enabled
-            if (discordConfig.getBoolean("embed.footer.show-player-count", true)) {
-                String playerCountFormat = discordConfig.getString("embed.footer.player-count-format", 
-                    "Sent to %count% player(s)")
-                    .replace("%count%", String.valueOf(playerCount));
-                
-                if (!footerText.isEmpty()) {
-                    footerText += " • " + playerCountFormat;
-                } else {
-                    footerText = playerCountFormat;
-                }
-            }
-            
-            String footerIcon = discordConfig.getString("embed.footer.icon-url", "");
-            if (!footerIcon.isEmpty()) {
-                embed.setFooter(footerText, footerIcon);
-            } else {
-                embed.setFooter(footerText);
-            }
+        return current;
+    }
+    
+    /**
+     * One HTTP client for all webhooks, created on first use
+     */
+    private synchronized HttpClient httpClient() {
+        if (httpClient == null) {
+            httpClient = WebhookTransport.createClient();
         }
-        
-        // Custom fields (embed builder functionality)
-        ConfigurationSection fieldsSection = discordConfig.getConfigurationSection("embed.fields");
-        if (fieldsSection != null) {
-            for (String key : fieldsSection.getKeys(false)) {
-                ConfigurationSection field = fieldsSection.getConfigurationSection(key);
-                if (field != null && field.getBoolean("enabled", false)) {
-                    String name = field.getString("name", "Field");
-                    String value = field.getString("value", "Value");
-                    boolean inline = field.getBoolean("inline", false);
-                    
-                    embed.addField(name, value, inline);
-                }
-            }
+        return httpClient;
+    }
+    
+    private synchronized void reportMissingDiscordSRV() {
+        if (!missingDiscordSRVReported) {
+            missingDiscordSRVReported = true;
+            plugin.getLogger().warning("Discord channel IDs need DiscordSRV, "
+                + "use a webhook URL instead to send announcements without it");
         }
-        
-        return embed;
     }
 }
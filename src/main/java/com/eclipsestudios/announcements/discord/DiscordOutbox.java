@@ -0,0 +1,260 @@
+package com.eclipsestudios.announcements.discord;
+
+import com.eclipsestudios.announcements.config.DiscordSettings;
+import com.eclipsestudios.announcements.metrics.AnnouncementMetrics;
+import com.eclipsestudios.announcements.metrics.AnnouncementMetrics.Stage;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * Outgoing announcement queue for one Discord destination (channel or webhook)
+ * Announcements arriving within the coalesce window go out as one message of up to 10 embeds,
+ * messages are paced by a token bucket matching Discord's per-channel limit so bursts wait
+ * here (visible in the metrics) instead of inside JDA, and duplicates still waiting are dropped
+ * One message is in flight at a time; failed messages are retried with exponential backoff,
+ * or after the delay Discord asked for when rate limited
+ * @param <E> The embed representation of the transport
+ */
+final class DiscordOutbox<E> {
+
+    // Discord's limits for a single message
+    static final int MAX_EMBEDS = 10;
+    private static final int MAX_TOTAL_LENGTH = 6000;
+    private static final int MAX_ATTEMPTS = 3;
+    private static final long INITIAL_BACKOFF_NANOS = TimeUnit.SECONDS.toNanos(1);
+    private static final long MAX_BACKOFF_NANOS = TimeUnit.SECONDS.toNanos(60);
+
+    private final DiscordTransport<E> transport;
+    private final ScheduledExecutorService executor;
+    private final AnnouncementMetrics metrics;
+    private final Logger logger;
+
+    // Guarded by this
+    private final Deque<Pending<E>> pending = new ArrayDeque<>();
+    private final Set<String> pendingKeys = new HashSet<>();
+    private DiscordSettings.OutboundSettings settings;
+    private ScheduledFuture<?> flush;
+    private boolean inFlight;
+    private boolean closed;
+    private long backoffNanos;
+    private double tokens = -1;
+    private long refilledAt;
+
+    DiscordOutbox(DiscordTransport<E> transport, ScheduledExecutorService executor,
+                  AnnouncementMetrics metrics, Logger logger) {
+        this.transport = transport;
+        this.executor = executor;
+        this.metrics = metrics;
+        this.logger = logger;
+    }
+
+    /**
+     * Queue an announcement embed
+     * @param dedupeKey Announcements with the same key are only sent once while waiting
+     */
+    synchronized void offer(E embed, String dedupeKey, DiscordSettings.OutboundSettings settings) {
+        this.settings = settings;
+        if (!pendingKeys.add(dedupeKey)) {
+            metrics.discordDuplicate();
+            return;
+        }
+
+        pending.add(new Pending<>(embed, dedupeKey, System.nanoTime(), 0));
+        while (pending.size() > settings.maxQueued()) {
+            Pending<E> dropped = pending.poll();
+            pendingKeys.remove(dropped.dedupeKey());
+            metrics.discordDropped();
+        }
+
+        // The first announcement opens the window, later ones join it
+        if (flush == null && !inFlight) {
+            scheduleFlush(TimeUnit.MILLISECONDS.toNanos(settings.coalesceWindowMillis()));
+        }
+    }
+
+    /**
+     * Announcements waiting to be sent
+     */
+    synchronized int size() {
+        return pending.size();
+    }
+
+    /**
+     * Send one message if the rate limit allows, otherwise wait for the next token
+     */
+    private void flush() {
+        List<Pending<E>> batch;
+        synchronized (this) {
+            flush = null;
+            if (pending.isEmpty() || inFlight) {
+                return;
+            }
+
+            long now = System.nanoTime();
+            long nanosPerToken = TimeUnit.SECONDS.toNanos(settings.rateLimitSeconds()) / settings.rateLimitMessages();
+            refill(now, nanosPerToken);
+            if (tokens < 1) {
+                scheduleFlush((long) ((1 - tokens) * nanosPerToken));
+                return;
+            }
+            tokens--;
+
+            batch = takeBatch();
+            inFlight = true;
+        }
+        send(batch);
+    }
+
+    private void refill(long now, long nanosPerToken) {
+        int capacity = settings.rateLimitMessages();
+        if (tokens < 0) {
+            // Full bucket the first time
+            tokens = capacity;
+        } else {
+            tokens = Math.min(capacity, tokens + (double) (now - refilledAt) / nanosPerToken);
+        }
+        refilledAt = now;
+    }
+
+    /**
+     * Take the oldest announcements that fit in one message
+     */
+    private List<Pending<E>> takeBatch() {
+        List<Pending<E>> batch = new ArrayList<>(Math.min(MAX_EMBEDS, pending.size()));
+        int length = 0;
+        while (!pending.isEmpty() && batch.size() < MAX_EMBEDS) {
+            Pending<E> next = pending.peek();
+            int embedLength = transport.length(next.embed());
+            if (!batch.isEmpty() && length + embedLength > MAX_TOTAL_LENGTH) {
+                break;
+            }
+            pending.poll();
+            pendingKeys.remove(next.dedupeKey());
+            batch.add(next);
+            length += embedLength;
+        }
+        return batch;
+    }
+
+    private void send(List<Pending<E>> batch) {
+        List<E> embeds = new ArrayList<>(batch.size());
+        for (Pending<E> entry : batch) {
+            embeds.add(entry.embed());
+        }
+
+        long sendStart = System.nanoTime();
+        CompletableFuture<Void> sent;
+        try {
+            sent = transport.send(embeds);
+        } catch (RuntimeException e) {
+            sent = CompletableFuture.failedFuture(e);
+        }
+        sent.whenComplete((ignored, error) -> {
+            if (error == null) {
+                metrics.record(Stage.DISCORD_SEND, sendStart);
+                for (Pending<E> entry : batch) {
+                    metrics.record(Stage.DISCORD_QUEUE, entry.enqueuedNanos());
+                }
+                metrics.discordSent(batch.size());
+                completed(batch, null);
+                return;
+            }
+
+            Throwable cause = error instanceof CompletionException && error.getCause() != null
+                ? error.getCause() : error;
+            DiscordSendException failure = cause instanceof DiscordSendException known
+                ? known
+                // Anything unexpected (I/O errors, timeouts) is worth another attempt
+                : new DiscordSendException(String.valueOf(cause.getMessage()), true, 0);
+            if (!failure.rateLimited()) {
+                logger.warning("Failed to send announcement to Discord " + transport.describe() + ": "
+                    + failure.getMessage());
+            }
+            completed(batch, failure);
+        });
+    }
+
+    /**
+     * Finish the in-flight message and schedule the next one, backing off after a failure
+     * @param failure Null if the message was sent
+     */
+    private synchronized void completed(List<Pending<E>> batch, DiscordSendException failure) {
+        inFlight = false;
+        if (failure == null) {
+            backoffNanos = 0;
+        } else {
+            backoffNanos = backoffNanos == 0 ? INITIAL_BACKOFF_NANOS : Math.min(MAX_BACKOFF_NANOS, backoffNanos * 2);
+            // Discord said exactly how long to wait
+            if (failure.rateLimited()) {
+                backoffNanos = failure.retryAfterNanos();
+            }
+
+            int failed = 0;
+            // Put retries back in front, in their original order
+            for (int i = batch.size() - 1; i >= 0; i--) {
+                Pending<E> entry = batch.get(i);
+                int attempts = entry.attempts() + (failure.rateLimited() ? 0 : 1);
+                if (failure.retryable() && !closed && attempts < MAX_ATTEMPTS && pendingKeys.add(entry.dedupeKey())) {
+                    pending.addFirst(entry.withAttempts(attempts));
+                } else {
+                    failed++;
+                }
+            }
+            if (failed > 0) {
+                metrics.discordFailed(failed);
+            }
+        }
+
+        if (!pending.isEmpty() && flush == null) {
+            scheduleFlush(backoffNanos);
+        }
+    }
+
+    private void scheduleFlush(long delayNanos) {
+        if (executor.isShutdown()) {
+            return;
+        }
+        flush = executor.schedule(this::flush, delayNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Send everything still waiting without waiting for the rate limit (plugin disable)
+     */
+    void close() {
+        while (true) {
+            List<Pending<E>> batch;
+            synchronized (this) {
+                // No retries from here on, they could never be sent
+                closed = true;
+                if (flush != null) {
+                    flush.cancel(false);
+                    flush = null;
+                }
+                if (pending.isEmpty()) {
+                    return;
+                }
+                batch = takeBatch();
+                inFlight = true;
+            }
+            send(batch);
+        }
+    }
+
+    private record Pending<E>(E embed, String dedupeKey, long enqueuedNanos, int attempts) {
+
+        Pending<E> withAttempts(int attempts) {
+            return new Pending<>(embed, dedupeKey, enqueuedNanos, attempts);
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.eclipsestudios.announcements.discord;
+
+import com.eclipsestudios.announcements.config.DiscordSettings;
+import com.eclipsestudios.announcements.delivery.AnnouncementScope;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Resolves the Discord channels an announcement goes to from the discord.yml routing table
+ */
+final class DiscordRouter {
+
+    private DiscordRouter() {
+    }
+
+    /**
+     * channel-id (if set) plus the channels of every matching route, without duplicates
+     */
+    static List<String> channelsFor(DiscordSettings settings, AnnouncementScope scope) {
+        List<String> channelIds = new ArrayList<>(2);
+        if (!settings.channelId().isEmpty()) {
+            channelIds.add(settings.channelId());
+        }
+
+        for (DiscordSettings.Route route : settings.routes()) {
+            if (!matches(route, scope)) {
+                continue;
+            }
+            for (String channelId : route.channelIds()) {
+                if (!channelIds.contains(channelId)) {
+                    channelIds.add(channelId);
+                }
+            }
+        }
+        return channelIds;
+    }
+
+    private static boolean matches(DiscordSettings.Route route, AnnouncementScope scope) {
+        if (!route.targets().isEmpty() && !route.targets().contains(scope.target().name().toLowerCase(Locale.ROOT))) {
+            return false;
+        }
+        // World routes only match announcements addressed to one of their worlds
+        if (!route.worlds().isEmpty() && (scope.world() == null || !route.worlds().contains(scope.world()))) {
+            return false;
+        }
+        return route.sources().isEmpty() || route.sources().contains(scope.source().name().toLowerCase(Locale.ROOT));
+    }
+}
@@ -0,0 +1,34 @@
+package com.eclipsestudios.announcements.discord;
+
+/**
+ * A failed Discord send with what the outbound queue should do about it
+ */
+final class DiscordSendException extends RuntimeException {
+
+    private final boolean retryable;
+    private final long retryAfterNanos;
+
+    /**
+     * @param retryAfterNanos Delay Discord asked for (rate limited), 0 if none
+     */
+    DiscordSendException(String message, boolean retryable, long retryAfterNanos) {
+        super(message);
+        this.retryable = retryable;
+        this.retryAfterNanos = retryAfterNanos;
+    }
+
+    boolean retryable() {
+        return retryable;
+    }
+
+    long retryAfterNanos() {
+        return retryAfterNanos;
+    }
+
+    /**
+     * Rate limited: retried after the given delay without counting as a failed attempt
+     */
+    boolean rateLimited() {
+        return retryAfterNanos > 0;
+    }
+}
@@ -0,0 +1,28 @@
+package com.eclipsestudios.announcements.discord;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Delivers announcement messages to one Discord destination
+ * @param <E> The embed representation the transport sends
+ */
+interface DiscordTransport<E> {
+
+    /**
+     * Send one message carrying the given embeds
+     * Completes exceptionally on failure, with a DiscordSendException when retrying is known to be pointless
+     * or has to wait for Discord
+     */
+    CompletableFuture<Void> send(List<E> embeds);
+
+    /**
+     * Characters of an embed counted against Discord's 6000 per message limit
+     */
+    int length(E embed);
+
+    /**
+     * Destination for log messages
+     */
+    String describe();
+}
@@ -0,0 +1,50 @@
+package com.eclipsestudios.announcements.discord;
+
+import com.eclipsestudios.announcements.config.DiscordSettings;
+import com.eclipsestudios.announcements.template.TemplateContext;
+import org.bukkit.entity.Player;
+
+import java.time.Instant;
+
+/**
+ * The per-announcement parts of the embed, rendered once and filled into every transport's prototype
+ * @param timestamp Null if timestamps are disabled
+ * @param authorName Null if the author section is disabled
+ * @param authorIconUrl Null if there is no author icon
+ * @param playerCount Rendered player count footer text, null if not shown
+ */
+record EmbedContent(String description, Instant timestamp, String authorName, String authorIconUrl,
+                    String playerCount) {
+
+    static EmbedContent render(DiscordSettings.EmbedSettings settings, String message, Player sender,
+                               int playerCount) {
+        // Description
+        String senderName = sender != null ? sender.getName() : "Server Console";
+        TemplateContext context = new TemplateContext(message, senderName, playerCount);
+        String description = settings.description().render(context);
+
+        // Author section
+        String authorName = null;
+        String authorIconUrl = null;
+        if (settings.authorEnabled()) {
+            if (sender != null && settings.authorShowPlayerName()) {
+                authorName = settings.authorFormat().render(context);
+                String icon = settings.authorIconUrl().render(context);
+                authorIconUrl = icon.isEmpty() ? null : icon;
+            } else {
+                authorName = settings.authorFormat().render(
+                    new TemplateContext(message, "Server Console", playerCount));
+            }
+        }
+
+        return new EmbedContent(
+            description,
+            settings.showTimestamp() ? Instant.now() : null,
+            authorName,
+            authorIconUrl,
+            settings.footerEnabled() && settings.footerShowPlayerCount()
+                ? settings.footerPlayerCountFormat().render(context)
+                : null
+        );
+    }
+}
@@ -0,0 +1,108 @@
+package com.eclipsestudios.announcements.discord;
+
+import com.eclipsestudios.announcements.config.DiscordSettings;
+import github.scarsz.discordsrv.dependencies.jda.api.EmbedBuilder;
+
+/**
+ * The parts of the announcement embed that don't depend on the announcement
+ * (color, title, thumbnail, image, static footer and custom fields), built once per discord.yml snapshot
+ * Each send copies the prototype and only fills in description, author, timestamp and player count
+ * Used for channels sent through DiscordSRV, see WebhookEmbedPrototype for webhooks
+ */
+final class EmbedPrototype {
+
+    private final DiscordSettings.EmbedSettings settings;
+    // Never modified after construction, only copied
+    private final EmbedBuilder prototype;
+    // Footer text placed before the player count, null if the footer is static or disabled
+    private final String footerPrefix;
+
+    private EmbedPrototype(DiscordSettings.EmbedSettings settings, EmbedBuilder prototype, String footerPrefix) {
+        this.settings = settings;
+        this.prototype = prototype;
+        this.footerPrefix = footerPrefix;
+    }
+
+    /**
+     * Build the prototype for a compiled embed configuration
+     */
+    static EmbedPrototype compile(DiscordSettings.EmbedSettings settings) {
+        EmbedBuilder embed = new EmbedBuilder();
+        embed.setColor(settings.color());
+
+        String title = settings.title();
+        if (title != null && !title.isEmpty()) {
+            embed.setTitle(title);
+        }
+
+        // Thumbnail (small image top right)
+        if (!settings.thumbnailUrl().isEmpty()) {
+            embed.setThumbnail(settings.thumbnailUrl());
+        }
+
+        // Image (large image below description)
+        if (!settings.imageUrl().isEmpty()) {
+            embed.setImage(settings.imageUrl());
+        }
+
+        // Footer is only static if it doesn't show the player count
+        String footerPrefix = null;
+        if (settings.footerEnabled()) {
+            String footerText = settings.footerText();
+            if (settings.footerShowPlayerCount()) {
+                footerPrefix = footerText.isEmpty() ? "" : footerText + " • ";
+            } else {
+                setFooter(embed, footerText, settings.footerIconUrl());
+            }
+        }
+
+        // Custom fields (embed builder functionality)
+        for (DiscordSettings.EmbedField field : settings.fields()) {
+            embed.addField(field.name(), field.value(), field.inline());
+        }
+
+        return new EmbedPrototype(settings, embed, footerPrefix);
+    }
+
+    /**
+     * Copy the prototype and fill in the per-announcement parts
+     */
+    EmbedBuilder fill(EmbedContent content) {
+        EmbedBuilder embed = new EmbedBuilder(prototype);
+        embed.setDescription(content.description());
+
+        if (content.timestamp() != null) {
+            embed.setTimestamp(content.timestamp());
+        }
+
+        if (content.authorName() != null) {
+            if (content.authorIconUrl() != null) {
+                embed.setAuthor(content.authorName(), null, content.authorIconUrl());
+            } else {
+                embed.setAuthor(content.authorName());
+            }
+        }
+
+        // Player count footer
+        if (footerPrefix != null) {
+            setFooter(embed, footerPrefix + content.playerCount(), settings.footerIconUrl());
+        }
+
+        return embed;
+    }
+
+    /**
+     * Settings this prototype was built from
+     */
+    DiscordSettings.EmbedSettings settings() {
+        return settings;
+    }
+
+    private static void setFooter(EmbedBuilder embed, String text, String iconUrl) {
+        if (!iconUrl.isEmpty()) {
+            embed.setFooter(text, iconUrl);
+        } else {
+            embed.setFooter(text);
+        }
+    }
+}
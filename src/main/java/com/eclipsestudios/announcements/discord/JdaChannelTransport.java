@@ -0,0 +1,75 @@
+package com.eclipsestudios.announcements.discord;
+
+import github.scarsz.discordsrv.DiscordSRV;
+import github.scarsz.discordsrv.dependencies.jda.api.JDA;
+import github.scarsz.discordsrv.dependencies.jda.api.entities.MessageEmbed;
+import github.scarsz.discordsrv.dependencies.jda.api.entities.TextChannel;
+import github.scarsz.discordsrv.dependencies.jda.api.exceptions.ErrorResponseException;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Sends to a text channel through DiscordSRV's JDA instance
+ */
+final class JdaChannelTransport implements DiscordTransport<MessageEmbed> {
+
+    private final String channelId;
+    // Looked up again only after a reconnect or while not found
+    private volatile TextChannel channel;
+
+    JdaChannelTransport(String channelId) {
+        this.channelId = channelId;
+    }
+
+    @Override
+    public CompletableFuture<Void> send(List<MessageEmbed> embeds) {
+        TextChannel target = channel();
+        if (target == null) {
+            return CompletableFuture.failedFuture(
+                new DiscordSendException("Discord channel not found with ID: " + channelId, true, 0));
+        }
+
+        try {
+            return target.sendMessageEmbeds(embeds).submit().handle((message, error) -> {
+                if (error == null) {
+                    return null;
+                }
+                Throwable cause = error instanceof CompletionException && error.getCause() != null
+                    ? error.getCause() : error;
+                // Network errors and Discord server errors are worth retrying, rejected requests are not
+                // (JDA already waits out 429 responses itself)
+                boolean retryable = !(cause instanceof ErrorResponseException response) || response.isServerError();
+                throw new DiscordSendException(cause.getMessage(), retryable, 0);
+            });
+        } catch (RuntimeException e) {
+            // e.g. missing permissions, thrown before the request is queued
+            return CompletableFuture.failedFuture(new DiscordSendException(e.getMessage(), false, 0));
+        }
+    }
+
+    @Override
+    public int length(MessageEmbed embed) {
+        return embed.getLength();
+    }
+
+    @Override
+    public String describe() {
+        return "channel " + channelId;
+    }
+
+    private TextChannel channel() {
+        JDA jda = DiscordSRV.getPlugin().getJda();
+        if (jda == null) {
+            return null;
+        }
+
+        TextChannel cached = channel;
+        if (cached != null && cached.getJDA() == jda) {
+            return cached;
+        }
+        channel = jda.getTextChannelById(channelId);
+        return channel;
+    }
+}
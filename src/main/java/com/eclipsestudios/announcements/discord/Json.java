@@ -0,0 +1,43 @@
+package com.eclipsestudios.announcements.discord;
+
+/**
+ * Just enough JSON writing for webhook payloads
+ */
+final class Json {
+
+    private Json() {
+    }
+
+    /**
+     * Append a string as a quoted, escaped JSON string
+     */
+    static StringBuilder appendString(StringBuilder json, String value) {
+        json.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> json.append("\\\"");
+                case '\\' -> json.append("\\\\");
+                case '\n' -> json.append("\\n");
+                case '\r' -> json.append("\\r");
+                case '\t' -> json.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        json.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        json.append(c);
+                    }
+                }
+            }
+        }
+        return json.append('"');
+    }
+
+    /**
+     * Append "name":"value" preceded by a comma
+     */
+    static StringBuilder appendField(StringBuilder json, String name, String value) {
+        json.append(",\"").append(name).append("\":");
+        return appendString(json, value);
+    }
+}
@@ -0,0 +1,71 @@
+package com.eclipsestudios.announcements.discord;
+
+import com.eclipsestudios.announcements.config.DiscordSettings;
+
+import java.util.Arrays;
+
+/**
+ * Recent Discord command permission decisions per guild member
+ * A fixed direct-mapped table, so lookups and updates never allocate and a member that
+ * collides with another one simply replaces it. Decisions expire after the configured TTL,
+ * are dropped when the member's roles change, and all of them are dropped on reload
+ */
+final class PermissionCache {
+
+    private static final int SIZE = 256;
+
+    // Guarded by this
+    private final long[] memberIds = new long[SIZE];
+    private final long[] guildIds = new long[SIZE];
+    private final long[] expiresAt = new long[SIZE];
+    private final boolean[] allowed = new boolean[SIZE];
+    // Settings the cached decisions were made with
+    private DiscordSettings.CommandSettings settings;
+
+    /**
+     * Cached decision for a member
+     * @return 1 if allowed, 0 if denied, -1 if not cached
+     */
+    synchronized int get(DiscordSettings.CommandSettings settings, long guildId, long memberId, long now) {
+        if (settings != this.settings) {
+            clear(settings);
+            return -1;
+        }
+        int slot = slot(memberId);
+        if (memberIds[slot] != memberId || guildIds[slot] != guildId || now - expiresAt[slot] >= 0) {
+            return -1;
+        }
+        return allowed[slot] ? 1 : 0;
+    }
+
+    synchronized void put(DiscordSettings.CommandSettings settings, long guildId, long memberId, boolean allowed,
+                          long expiresAt) {
+        if (settings != this.settings) {
+            clear(settings);
+        }
+        int slot = slot(memberId);
+        memberIds[slot] = memberId;
+        guildIds[slot] = guildId;
+        this.expiresAt[slot] = expiresAt;
+        this.allowed[slot] = allowed;
+    }
+
+    /**
+     * Forget the decision for a member, e.g. after their roles changed
+     */
+    synchronized void invalidate(long memberId) {
+        int slot = slot(memberId);
+        if (memberIds[slot] == memberId) {
+            memberIds[slot] = 0;
+        }
+    }
+
+    private void clear(DiscordSettings.CommandSettings settings) {
+        this.settings = settings;
+        Arrays.fill(memberIds, 0);
+    }
+
+    private static int slot(long memberId) {
+        return (int) ((memberId * 0x9E3779B97F4A7C15L) >>> 32) & (SIZE - 1);
+    }
+}
@@ -0,0 +1,72 @@
+package com.eclipsestudios.announcements.discord;
+
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.IntSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Caps the number of asynchronous requests running at once
+ * Requests over the limit wait in a FIFO queue and start as earlier ones finish, nothing blocks
+ */
+final class RequestLimiter {
+
+    private final IntSupplier maxInFlight;
+    private final Queue<Runnable> waiting = new ConcurrentLinkedQueue<>();
+    // Guarded by this
+    private int inFlight;
+
+    RequestLimiter(IntSupplier maxInFlight) {
+        this.maxInFlight = maxInFlight;
+    }
+
+    /**
+     * Start the request now if a slot is free, otherwise once one is
+     */
+    <T> CompletableFuture<T> submit(Supplier<CompletableFuture<T>> request) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        waiting.add(() -> {
+            CompletableFuture<T> started;
+            try {
+                started = request.get();
+            } catch (RuntimeException e) {
+                started = CompletableFuture.failedFuture(e);
+            }
+            started.whenComplete((value, error) -> {
+                release();
+                if (error != null) {
+                    result.completeExceptionally(error);
+                } else {
+                    result.complete(value);
+                }
+            });
+        });
+        drain();
+        return result;
+    }
+
+    synchronized int inFlight() {
+        return inFlight;
+    }
+
+    private void release() {
+        synchronized (this) {
+            inFlight--;
+        }
+        drain();
+    }
+
+    private void drain() {
+        while (true) {
+            Runnable next;
+            synchronized (this) {
+                if (inFlight >= maxInFlight.getAsInt() || (next = waiting.poll()) == null) {
+                    return;
+                }
+                inFlight++;
+            }
+            next.run();
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package com.eclipsestudios.announcements.discord;
+
+/**
+ * One embed serialized for a webhook payload
+ * @param length Characters counted against Discord's 6000 per message limit
+ */
+record WebhookEmbed(String json, int length) {
+}
@@ -0,0 +1,138 @@
+package com.eclipsestudios.announcements.discord;
+
+import com.eclipsestudios.announcements.config.DiscordSettings;
+
+import java.time.format.DateTimeFormatter;
+
+/**
+ * The webhook counterpart of EmbedPrototype: the static parts of the embed are serialized once
+ * per discord.yml snapshot, each send only appends description, author, timestamp and player count
+ * Needs nothing from DiscordSRV, so webhooks also work without it
+ */
+final class WebhookEmbedPrototype {
+
+    private final DiscordSettings.EmbedSettings settings;
+    // {"color":...,"title":...,"thumbnail":...,"image":...,"fields":[...] (object left open)
+    private final String staticJson;
+    private final int staticLength;
+    // Footer text placed before the player count, null if the footer is static or disabled
+    private final String footerPrefix;
+
+    private WebhookEmbedPrototype(DiscordSettings.EmbedSettings settings, String staticJson, int staticLength,
+                                  String footerPrefix) {
+        this.settings = settings;
+        this.staticJson = staticJson;
+        this.staticLength = staticLength;
+        this.footerPrefix = footerPrefix;
+    }
+
+    /**
+     * Serialize the static parts of a compiled embed configuration
+     */
+    static WebhookEmbedPrototype compile(DiscordSettings.EmbedSettings settings) {
+        StringBuilder json = new StringBuilder(256);
+        int length = 0;
+        json.append("{\"color\":").append(settings.color().getRGB() & 0xFFFFFF);
+
+        String title = settings.title();
+        if (title != null && !title.isEmpty()) {
+            Json.appendField(json, "title", title);
+            length += title.length();
+        }
+
+        // Thumbnail (small image top right)
+        if (!settings.thumbnailUrl().isEmpty()) {
+            json.append(",\"thumbnail\":{\"url\":");
+            Json.appendString(json, settings.thumbnailUrl()).append('}');
+        }
+
+        // Image (large image below description)
+        if (!settings.imageUrl().isEmpty()) {
+            json.append(",\"image\":{\"url\":");
+            Json.appendString(json, settings.imageUrl()).append('}');
+        }
+
+        // Footer is only static if it doesn't show the player count
+        String footerPrefix = null;
+        if (settings.footerEnabled()) {
+            String footerText = settings.footerText();
+            if (settings.footerShowPlayerCount()) {
+                footerPrefix = footerText.isEmpty() ? "" : footerText + " • ";
+            } else {
+                appendFooter(json, footerText, settings.footerIconUrl());
+                length += footerText.length();
+            }
+        }
+
+        // Custom fields (embed builder functionality)
+        if (!settings.fields().isEmpty()) {
+            json.append(",\"fields\":[");
+            boolean first = true;
+            for (DiscordSettings.EmbedField field : settings.fields()) {
+                if (!first) {
+                    json.append(',');
+                }
+                first = false;
+                json.append("{\"name\":");
+                Json.appendString(json, field.name());
+                Json.appendField(json, "value", field.value());
+                json.append(",\"inline\":").append(field.inline()).append('}');
+                length += field.name().length() + field.value().length();
+            }
+            json.append(']');
+        }
+
+        return new WebhookEmbedPrototype(settings, json.toString(), length, footerPrefix);
+    }
+
+    /**
+     * Append the per-announcement parts to the static JSON
+     */
+    WebhookEmbed fill(EmbedContent content) {
+        StringBuilder json = new StringBuilder(staticJson.length() + content.description().length() + 256);
+        json.append(staticJson);
+        int length = staticLength;
+
+        Json.appendField(json, "description", content.description());
+        length += content.description().length();
+
+        if (content.timestamp() != null) {
+            Json.appendField(json, "timestamp", DateTimeFormatter.ISO_INSTANT.format(content.timestamp()));
+        }
+
+        if (content.authorName() != null) {
+            json.append(",\"author\":{\"name\":");
+            Json.appendString(json, content.authorName());
+            if (content.authorIconUrl() != null) {
+                Json.appendField(json, "icon_url", content.authorIconUrl());
+            }
+            json.append('}');
+            length += content.authorName().length();
+        }
+
+        // Player count footer
+        if (footerPrefix != null) {
+            String footerText = footerPrefix + content.playerCount();
+            appendFooter(json, footerText, settings.footerIconUrl());
+            length += footerText.length();
+        }
+
+        return new WebhookEmbed(json.append('}').toString(), length);
+    }
+
+    /**
+     * Settings this prototype was built from
+     */
+    DiscordSettings.EmbedSettings settings() {
+        return settings;
+    }
+
+    private static void appendFooter(StringBuilder json, String text, String iconUrl) {
+        json.append(",\"footer\":{\"text\":");
+        Json.appendString(json, text);
+        if (!iconUrl.isEmpty()) {
+            Json.appendField(json, "icon_url", iconUrl);
+        }
+        json.append('}');
+    }
+}
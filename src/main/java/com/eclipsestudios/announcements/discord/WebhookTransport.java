@@ -0,0 +1,135 @@
+package com.eclipsestudios.announcements.discord;
+
+import com.eclipsestudios.announcements.config.DiscordSettings;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Posts to a Discord webhook over a shared HttpClient, independent of DiscordSRV and its rate limits
+ * The client keeps connections alive between requests; the limiter bounds requests in flight
+ * over all webhooks, and 429 responses are retried after the Retry-After delay Discord asks for
+ */
+final class WebhookTransport implements DiscordTransport<WebhookEmbed> {
+
+    // Used when a 429 response doesn't say how long to wait
+    private static final long DEFAULT_RETRY_AFTER_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final URI uri;
+    private final HttpClient client;
+    private final RequestLimiter limiter;
+    private final Supplier<DiscordSettings.WebhookSettings> settings;
+
+    WebhookTransport(URI uri, HttpClient client, RequestLimiter limiter,
+                     Supplier<DiscordSettings.WebhookSettings> settings) {
+        this.uri = uri;
+        this.client = client;
+        this.limiter = limiter;
+        this.settings = settings;
+    }
+
+    /**
+     * Client shared by every webhook, HTTP/1.1 keep-alive so connections are reused
+     */
+    static HttpClient createClient() {
+        return HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(10))
+            .build();
+    }
+
+    @Override
+    public CompletableFuture<Void> send(List<WebhookEmbed> embeds) {
+        DiscordSettings.WebhookSettings webhook = settings.get();
+        HttpRequest request = HttpRequest.newBuilder(uri)
+            .timeout(Duration.ofSeconds(webhook.timeoutSeconds()))
+            .header("Content-Type", "application/json")
+            .POST(HttpRequest.BodyPublishers.ofString(payload(embeds, webhook)))
+            .build();
+
+        return limiter.submit(() -> client.sendAsync(request, HttpResponse.BodyHandlers.ofString()))
+            .thenApply(WebhookTransport::check);
+    }
+
+    /**
+     * {"embeds":[...],"username":...,"avatar_url":...}
+     */
+    static String payload(List<WebhookEmbed> embeds, DiscordSettings.WebhookSettings webhook) {
+        int size = 64;
+        for (WebhookEmbed embed : embeds) {
+            size += embed.json().length() + 1;
+        }
+
+        StringBuilder json = new StringBuilder(size);
+        json.append("{\"embeds\":[");
+        for (int i = 0; i < embeds.size(); i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append(embeds.get(i).json());
+        }
+        json.append(']');
+        if (!webhook.username().isEmpty()) {
+            Json.appendField(json, "username", webhook.username());
+        }
+        if (!webhook.avatarUrl().isEmpty()) {
+            Json.appendField(json, "avatar_url", webhook.avatarUrl());
+        }
+        return json.append('}').toString();
+    }
+
+    private static Void check(HttpResponse<String> response) {
+        int status = response.statusCode();
+        if (status >= 200 && status < 300) {
+            return null;
+        }
+        if (status == 429) {
+            throw new DiscordSendException("Rate limited by Discord", true, retryAfterNanos(response));
+        }
+        // Server errors may go away, anything else (bad URL, deleted webhook, invalid embed) won't
+        throw new DiscordSendException("Webhook returned HTTP " + status + ": " + abbreviate(response.body()),
+            status >= 500, 0);
+    }
+
+    /**
+     * Retry-After is in seconds and may be fractional
+     */
+    private static long retryAfterNanos(HttpResponse<?> response) {
+        String header = response.headers().firstValue("Retry-After").orElse(null);
+        if (header != null) {
+            try {
+                double seconds = Double.parseDouble(header.trim());
+                if (seconds > 0) {
+                    return (long) (seconds * 1_000_000_000L);
+                }
+            } catch (NumberFormatException ignored) {
+                // HTTP date or garbage, use the default
+            }
+        }
+        return DEFAULT_RETRY_AFTER_NANOS;
+    }
+
+    private static String abbreviate(String body) {
+        return body == null || body.length() <= 200 ? body : body.substring(0, 200) + "...";
+    }
+
+    @Override
+    public int length(WebhookEmbed embed) {
+        return embed.length();
+    }
+
+    @Override
+    public String describe() {
+        // The token part of the URL is a secret, keep it out of the log
+        String path = uri.getPath();
+        int tokenStart = path.lastIndexOf('/');
+        return "webhook " + (tokenStart > 0 ? path.substring(0, tokenStart) : path);
+    }
+}
@@ -0,0 +1,378 @@
+package com.eclipsestudios.announcements.metrics;
+
+import com.eclipsestudios.announcements.template.ComponentCache;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntSupplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Per-stage delivery latency and counters for announcements
+ * Everything is lock-free so recording is safe and cheap from any thread
+ */
+public final class AnnouncementMetrics implements AnnouncementMetricsMXBean {
+
+    private static final String JMX_DOMAIN = "com.eclipsestudios.announcements";
+
+    /**
+     * Measured stages of an announcement
+     */
+    public enum Stage {
+        // Whole sendAnnouncement call on the calling thread
+        ANNOUNCEMENT,
+        // Preparing shared content
+        PREPARE,
+        // Rendering per-player payloads
+        RENDER,
+        // PlaceholderAPI.setPlaceholders time of one render batch
+        PLACEHOLDERS,
+        TITLE,
+        CHAT,
+        BOSSBAR,
+        SOUND,
+        // Building the Discord embed
+        DISCORD_BUILD,
+        // From queueing the announcement for Discord to Discord confirming it
+        DISCORD_QUEUE,
+        // One (possibly coalesced) Discord message, from sending to Discord confirming it
+        DISCORD_SEND;
+
+        public String displayName() {
+            return name().toLowerCase(Locale.ROOT).replace('_', '-');
+        }
+    }
+
+    /**
+     * Why a Discord message or command didn't lead to an announcement, in check order
+     * The first three are the prefix command listener skipping unrelated messages
+     */
+    public enum CommandRejection {
+        // Sent by a bot (including ourselves)
+        BOT,
+        // Guild channel not in the allowlist
+        CHANNEL,
+        // Doesn't start with the prefix command
+        PREFIX,
+        // Prefix command in a DM while DMs aren't allowed
+        DM,
+        // Prefix command from a member without permission
+        PERMISSION,
+        // The user sent a command too recently
+        RATE_LIMIT,
+        // Too many commands waiting for the main thread
+        BUSY;
+
+        public String displayName() {
+            return name().toLowerCase(Locale.ROOT).replace('_', '-');
+        }
+    }
+
+    private final Map<Stage, LatencyHistogram> stages = new EnumMap<>(Stage.class);
+    private final LongAdder announcements = new LongAdder();
+    private final LongAdder recipients = new LongAdder();
+    private final LongAdder packetsSent = new LongAdder();
+    private final LongAdder discordSent = new LongAdder();
+    private final LongAdder discordFailures = new LongAdder();
+    private final LongAdder discordMessages = new LongAdder();
+    private final LongAdder discordDuplicates = new LongAdder();
+    private final LongAdder discordDropped = new LongAdder();
+    private final Map<CommandRejection, LongAdder> commandRejections = new EnumMap<>(CommandRejection.class);
+    private final LongAdder commandsAccepted = new LongAdder();
+
+    private final List<ObjectName> registeredBeans = new ArrayList<>();
+    private ComponentCache componentCache;
+    private volatile IntSupplier discordQueueDepth = () -> 0;
+
+    public AnnouncementMetrics() {
+        for (Stage stage : Stage.values()) {
+            stages.put(stage, new LatencyHistogram());
+        }
+        for (CommandRejection rejection : CommandRejection.values()) {
+            commandRejections.put(rejection, new LongAdder());
+        }
+    }
+
+    /**
+     * Record the time elapsed since startNanos (from System.nanoTime()) for a stage
+     */
+    public void record(Stage stage, long startNanos) {
+        stages.get(stage).record(System.nanoTime() - startNanos);
+    }
+
+    public void recordNanos(Stage stage, long nanos) {
+        stages.get(stage).record(nanos);
+    }
+
+    /**
+     * Count one announcement and its recipients
+     */
+    public void announcementSent(int recipientCount) {
+        announcements.increment();
+        recipients.add(recipientCount);
+    }
+
+    public void packetsSent(int count) {
+        packetsSent.add(count);
+    }
+
+    /**
+     * Count announcements Discord confirmed, sent together as one message
+     */
+    public void discordSent(int announcementCount) {
+        discordSent.add(announcementCount);
+        discordMessages.increment();
+    }
+
+    public void discordFailed(int announcementCount) {
+        discordFailures.add(announcementCount);
+    }
+
+    /**
+     * Count an announcement dropped because the same one was already waiting
+     */
+    public void discordDuplicate() {
+        discordDuplicates.increment();
+    }
+
+    /**
+     * Count an announcement dropped because the outbound queue was full
+     */
+    public void discordDropped() {
+        discordDropped.increment();
+    }
+
+    /**
+     * Count a message the prefix command listener ignored or refused
+     */
+    public void commandRejected(CommandRejection rejection) {
+        commandRejections.get(rejection).increment();
+    }
+
+    /**
+     * Count a prefix command that passed every check
+     */
+    public void commandAccepted() {
+        commandsAccepted.increment();
+    }
+
+    public long commandRejections(CommandRejection rejection) {
+        return commandRejections.get(rejection).sum();
+    }
+
+    /**
+     * Report the outbound Discord queue depth from the given source
+     */
+    public void trackDiscordQueue(IntSupplier depth) {
+        this.discordQueueDepth = depth;
+    }
+
+    public LatencyHistogram histogram(Stage stage) {
+        return stages.get(stage);
+    }
+
+    /**
+     * Register the metrics as JMX MBeans
+     */
+    public void registerMBeans(ComponentCache cache, Logger logger) {
+        this.componentCache = cache;
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            register(server, new ObjectName(JMX_DOMAIN + ":type=Metrics"), this);
+            for (Stage stage : Stage.values()) {
+                ObjectName name = new ObjectName(JMX_DOMAIN + ":type=Stage,name=" + stage.displayName());
+                register(server, name, new StageMetrics(stages.get(stage)));
+            }
+        } catch (Exception e) {
+            logger.log(Level.WARNING, "Failed to register JMX metrics", e);
+        }
+    }
+
+    private void register(MBeanServer server, ObjectName name, Object bean) throws Exception {
+        // A previous instance may still be registered after a plugin reload
+        if (server.isRegistered(name)) {
+            server.unregisterMBean(name);
+        }
+        server.registerMBean(bean, name);
+        registeredBeans.add(name);
+    }
+
+    /**
+     * Unregister all JMX MBeans
+     */
+    public void unregisterMBeans() {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        for (ObjectName name : registeredBeans) {
+            try {
+                server.unregisterMBean(name);
+            } catch (Exception ignored) {
+                // Already gone
+            }
+        }
+        registeredBeans.clear();
+    }
+
+    @Override
+    public long getAnnouncements() {
+        return announcements.sum();
+    }
+
+    @Override
+    public long getRecipients() {
+        return recipients.sum();
+    }
+
+    @Override
+    public long getPacketsSent() {
+        return packetsSent.sum();
+    }
+
+    @Override
+    public long getDiscordSent() {
+        return discordSent.sum();
+    }
+
+    @Override
+    public long getDiscordFailures() {
+        return discordFailures.sum();
+    }
+
+    @Override
+    public long getDiscordMessages() {
+        return discordMessages.sum();
+    }
+
+    @Override
+    public long getDiscordDuplicates() {
+        return discordDuplicates.sum();
+    }
+
+    @Override
+    public long getDiscordDropped() {
+        return discordDropped.sum();
+    }
+
+    @Override
+    public int getDiscordQueueDepth() {
+        return discordQueueDepth.getAsInt();
+    }
+
+    @Override
+    public long getDiscordCommandsAccepted() {
+        return commandsAccepted.sum();
+    }
+
+    @Override
+    public long getDiscordCommandsRejectedBot() {
+        return commandRejections(CommandRejection.BOT);
+    }
+
+    @Override
+    public long getDiscordCommandsRejectedChannel() {
+        return commandRejections(CommandRejection.CHANNEL);
+    }
+
+    @Override
+    public long getDiscordCommandsRejectedPrefix() {
+        return commandRejections(CommandRejection.PREFIX);
+    }
+
+    @Override
+    public long getDiscordCommandsRejectedDm() {
+        return commandRejections(CommandRejection.DM);
+    }
+
+    @Override
+    public long getDiscordCommandsRejectedPermission() {
+        return commandRejections(CommandRejection.PERMISSION);
+    }
+
+    @Override
+    public long getDiscordCommandsRejectedRateLimit() {
+        return commandRejections(CommandRejection.RATE_LIMIT);
+    }
+
+    @Override
+    public long getDiscordCommandsRejectedBusy() {
+        return commandRejections(CommandRejection.BUSY);
+    }
+
+    @Override
+    public long getComponentCacheHits() {
+        return componentCache != null ? componentCache.hits() : 0;
+    }
+
+    @Override
+    public long getComponentCacheMisses() {
+        return componentCache != null ? componentCache.misses() : 0;
+    }
+
+    @Override
+    public int getComponentCacheSize() {
+        return componentCache != null ? componentCache.size() : 0;
+    }
+
+    @Override
+    public void reset() {
+        for (LatencyHistogram histogram : stages.values()) {
+            histogram.reset();
+        }
+        announcements.reset();
+        recipients.reset();
+        packetsSent.reset();
+        discordSent.reset();
+        discordFailures.reset();
+        discordMessages.reset();
+        discordDuplicates.reset();
+        discordDropped.reset();
+        for (LongAdder rejections : commandRejections.values()) {
+            rejections.reset();
+        }
+        commandsAccepted.reset();
+    }
+
+    /**
+     * JMX adapter for a single stage histogram
+     */
+    private static final class StageMetrics implements StageMetricsMXBean {
+
+        private final LatencyHistogram histogram;
+
+        StageMetrics(LatencyHistogram histogram) {
+            this.histogram = histogram;
+        }
+
+        @Override
+        public long getCount() {
+            return histogram.count();
+        }
+
+        @Override
+        public double getMeanMicros() {
+            return histogram.meanNanos() / 1000.0;
+        }
+
+        @Override
+        public double getP50Micros() {
+            return histogram.percentileNanos(0.50) / 1000.0;
+        }
+
+        @Override
+        public double getP99Micros() {
+            return histogram.percentileNanos(0.99) / 1000.0;
+        }
+
+        @Override
+        public double getMaxMicros() {
+            return histogram.maxNanos() / 1000.0;
+        }
+    }
+}
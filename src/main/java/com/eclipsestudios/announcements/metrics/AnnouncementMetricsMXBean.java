@@ -0,0 +1,61 @@
+package com.eclipsestudios.announcements.metrics;
+
+/**
+ * JMX view of announcement delivery counters
+ */
+public interface AnnouncementMetricsMXBean {
+
+    long getAnnouncements();
+
+    long getRecipients();
+
+    long getPacketsSent();
+
+    long getDiscordSent();
+
+    long getDiscordFailures();
+
+    /**
+     * Discord messages sent (one message can carry several announcements)
+     */
+    long getDiscordMessages();
+
+    long getDiscordDuplicates();
+
+    long getDiscordDropped();
+
+    int getDiscordQueueDepth();
+
+    /**
+     * Discord prefix commands that passed the listener's checks
+     */
+    long getDiscordCommandsAccepted();
+
+    /**
+     * Messages the prefix command listener stopped at, by check
+     */
+    long getDiscordCommandsRejectedBot();
+
+    long getDiscordCommandsRejectedChannel();
+
+    long getDiscordCommandsRejectedPrefix();
+
+    long getDiscordCommandsRejectedDm();
+
+    long getDiscordCommandsRejectedPermission();
+
+    long getDiscordCommandsRejectedRateLimit();
+
+    long getDiscordCommandsRejectedBusy();
+
+    long getComponentCacheHits();
+
+    long getComponentCacheMisses();
+
+    int getComponentCacheSize();
+
+    /**
+     * Reset all counters and histograms
+     */
+    void reset();
+}
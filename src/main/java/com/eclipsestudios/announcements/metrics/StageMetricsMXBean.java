@@ -0,0 +1,24 @@
+package com.eclipsestudios.announcements.metrics;
+
+/**
+ * JMX view of one announcement stage's latency
+ * Percentiles come from a bucketed histogram, count, mean and max are exact
+ */
+public interface StageMetricsMXBean {
+
+    long getCount();
+
+    double getMeanMicros();
+
+    /**
+     * Upper bound of the median: at most 12.5% above the true value, never above the max
+     */
+    double getP50Micros();
+
+    /**
+     * Upper bound of the 99th percentile: at most 12.5% above the true value, never above the max
+     */
+    double getP99Micros();
+
+    double getMaxMicros();
+}
@@ -0,0 +1,63 @@
+package com.eclipsestudios.announcements.scheduler;
+
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.scheduler.BukkitRunnable;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.util.function.Consumer;
+
+/**
+ * Classic Paper/Bukkit scheduler: everything runs on the main thread
+ */
+final class BukkitTaskScheduler implements TaskScheduler {
+
+    private final Plugin plugin;
+
+    BukkitTaskScheduler(Plugin plugin) {
+        this.plugin = plugin;
+    }
+
+    @Override
+    public boolean isRegionThreaded() {
+        return false;
+    }
+
+    @Override
+    public void runGlobal(Runnable task) {
+        if (Bukkit.isPrimaryThread()) {
+            task.run();
+            return;
+        }
+        Bukkit.getScheduler().runTask(plugin, task);
+    }
+
+    @Override
+    public TaskHandle runGlobalLater(Runnable task, long delayTicks) {
+        BukkitTask bukkitTask = Bukkit.getScheduler().runTaskLater(plugin, task, delayTicks);
+        return bukkitTask::cancel;
+    }
+
+    @Override
+    public TaskHandle runGlobalTimer(Consumer<TaskHandle> task, long delayTicks, long periodTicks) {
+        BukkitRunnable runnable = new BukkitRunnable() {
+            @Override
+            public void run() {
+                task.accept(this::cancel);
+            }
+        };
+        runnable.runTaskTimer(plugin, delayTicks, periodTicks);
+        return runnable::cancel;
+    }
+
+    @Override
+    public void runForPlayer(Player player, Runnable task) {
+        runGlobal(task);
+    }
+
+    @Override
+    public void runAsync(Runnable task) {
+        Bukkit.getScheduler().runTaskAsynchronously(plugin, task);
+    }
+}
@@ -0,0 +1,55 @@
+package com.eclipsestudios.announcements.scheduler;
+
+import io.papermc.paper.threadedregions.scheduler.ScheduledTask;
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
+import org.bukkit.plugin.Plugin;
+
+import java.util.function.Consumer;
+
+/**
+ * Folia scheduler: global work on the global region, per-player work on the owning region
+ */
+final class FoliaTaskScheduler implements TaskScheduler {
+
+    private final Plugin plugin;
+
+    FoliaTaskScheduler(Plugin plugin) {
+        this.plugin = plugin;
+    }
+
+    @Override
+    public boolean isRegionThreaded() {
+        return true;
+    }
+
+    @Override
+    public void runGlobal(Runnable task) {
+        Bukkit.getGlobalRegionScheduler().execute(plugin, task);
+    }
+
+    @Override
+    public TaskHandle runGlobalLater(Runnable task, long delayTicks) {
+        // Folia requires a delay of at least one tick
+        ScheduledTask scheduled = Bukkit.getGlobalRegionScheduler()
+            .runDelayed(plugin, ignored -> task.run(), Math.max(1L, delayTicks));
+        return scheduled::cancel;
+    }
+
+    @Override
+    public TaskHandle runGlobalTimer(Consumer<TaskHandle> task, long delayTicks, long periodTicks) {
+        ScheduledTask scheduled = Bukkit.getGlobalRegionScheduler().runAtFixedRate(plugin,
+            self -> task.accept(self::cancel), Math.max(1L, delayTicks), Math.max(1L, periodTicks));
+        return scheduled::cancel;
+    }
+
+    @Override
+    public void runForPlayer(Player player, Runnable task) {
+        player.getScheduler().run(plugin, ignored -> task.run(), null);
+    }
+
+    @Override
+    public void runAsync(Runnable task) {
+        Bukkit.getAsyncScheduler().runNow(plugin, ignored -> task.run());
+    }
+}
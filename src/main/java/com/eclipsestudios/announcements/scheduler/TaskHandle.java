@@ -0,0 +1,13 @@
+package com.eclipsestudios.announcements.scheduler;
+
+/**
+ * Handle to a scheduled task, independent of the scheduler implementation
+ */
+@FunctionalInterface
+public interface TaskHandle {
+
+    /**
+     * Cancel the task (no-op if it already finished)
+     */
+    void cancel();
+}
@@ -0,0 +1,69 @@
+package com.eclipsestudios.announcements.scheduler;
+
+import org.bukkit.entity.Player;
+import org.bukkit.plugin.Plugin;
+
+import java.util.function.Consumer;
+
+/**
+ * Schedules plugin work on the right thread for the running server
+ * Classic Paper runs everything on the main thread, Folia runs global work on the
+ * global region and per-player work on the region that owns the player
+ */
+public interface TaskScheduler {
+
+    /**
+     * Create the scheduler for the running server
+     */
+    static TaskScheduler create(Plugin plugin) {
+        if (isFolia()) {
+            return new FoliaTaskScheduler(plugin);
+        }
+        return new BukkitTaskScheduler(plugin);
+    }
+
+    /**
+     * True if the server uses Folia's region threading
+     */
+    static boolean isFolia() {
+        try {
+            Class.forName("io.papermc.paper.threadedregions.RegionizedServer");
+            return true;
+        } catch (ClassNotFoundException e) {
+            return false;
+        }
+    }
+
+    /**
+     * True if per-player work must run on the player's region thread
+     */
+    boolean isRegionThreaded();
+
+    /**
+     * Run on the main thread (global region on Folia)
+     */
+    void runGlobal(Runnable task);
+
+    /**
+     * Run on the main thread (global region on Folia) after a delay
+     */
+    TaskHandle runGlobalLater(Runnable task, long delayTicks);
+
+    /**
+     * Run repeatedly on the main thread (global region on Folia)
+     * The task receives its own handle so it can cancel itself
+     */
+    TaskHandle runGlobalTimer(Consumer<TaskHandle> task, long delayTicks, long periodTicks);
+
+    /**
+     * Run on the thread that owns the player (main thread on Paper)
+     * On Folia the task is dropped if the player has left, on Paper it always runs,
+     * so the task must not assume the player is still online
+     */
+    void runForPlayer(Player player, Runnable task);
+
+    /**
+     * Run off the main thread
+     */
+    void runAsync(Runnable task);
+}
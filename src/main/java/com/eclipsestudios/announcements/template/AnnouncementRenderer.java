@@ -0,0 +1,135 @@
+package com.eclipsestudios.announcements.template;
+
+import com.eclipsestudios.announcements.config.PluginSettings;
+import com.eclipsestudios.announcements.metrics.AnnouncementMetrics;
+import me.clip.placeholderapi.PlaceholderAPI;
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.serializer.legacy.LegacyComponentSerializer;
+import org.bukkit.entity.Player;
+
+import java.util.function.BiFunction;
+
+/**
+ * Renders compiled templates into Components
+ * Safe to use from render threads: buffers and placeholder timings are per-thread and the cache is striped,
+ * viewers' worlds are passed in so the render threads never read player state
+ */
+public final class AnnouncementRenderer {
+
+    private final boolean placeholderAPIEnabled;
+    // Null without PlaceholderAPI
+    private final BiFunction<Player, String, String> placeholders;
+    private final AnnouncementMetrics metrics;
+    private final ThreadLocal<StringBuilder> buffers = ThreadLocal.withInitial(() -> new StringBuilder(256));
+    // PlaceholderAPI time of the current render batch on this thread
+    private final ThreadLocal<long[]> placeholderNanos = ThreadLocal.withInitial(() -> new long[1]);
+    private final ComponentCache cache = new ComponentCache(512);
+    private volatile boolean cacheEnabled = true;
+
+    public AnnouncementRenderer(boolean placeholderAPIEnabled, AnnouncementMetrics metrics) {
+        this(placeholderAPIEnabled ? PlaceholderAPI::setPlaceholders : null, metrics);
+    }
+
+    /**
+     * @param placeholders Resolves placeholders in a line for a viewer, null to leave them untouched
+     */
+    public AnnouncementRenderer(BiFunction<Player, String, String> placeholders, AnnouncementMetrics metrics) {
+        this.placeholderAPIEnabled = placeholders != null;
+        this.placeholders = placeholders;
+        this.metrics = metrics;
+    }
+
+    /**
+     * Called at the start of every announcement to apply the current cache settings
+     */
+    public void beginAnnouncement(PluginSettings.CacheSettings settings) {
+        cacheEnabled = settings.enabled();
+        if (cache.maxSize() != settings.maxSize()) {
+            cache.resize(settings.maxSize());
+        }
+        if (!cacheEnabled || !settings.sharedAcrossAnnouncements()) {
+            // Per-announcement mode: entries never outlive the announcement
+            cache.clear();
+        }
+    }
+
+    /**
+     * Prepare a template for one announcement
+     * Player-independent templates are rendered exactly once here
+     */
+    public PreparedLine prepare(AnnouncementTemplate template, TemplateContext context) {
+        if (!isPersonalized(template, context)) {
+            return PreparedLine.shared(template, render(template, context, null, null));
+        }
+        return PreparedLine.personalized(this, template, context);
+    }
+
+    /**
+     * True if the rendered output can differ between viewers
+     */
+    public boolean isPersonalized(AnnouncementTemplate template, TemplateContext context) {
+        if (template.usesWorld()) {
+            return true;
+        }
+        return placeholderAPIEnabled
+            && (template.hasPlaceholders() || (template.usesMessage() && context.messageHasPlaceholders()));
+    }
+
+    /**
+     * Render a template for a single viewer
+     * @param worldName The viewer's world for %world%
+     */
+    public Component render(AnnouncementTemplate template, TemplateContext context, Player viewer, String worldName) {
+        if (template.isLiteral()) {
+            return template.literalComponent();
+        }
+
+        String text = renderText(template, context, viewer, worldName);
+        if (!cacheEnabled) {
+            return LegacyComponentSerializer.legacyAmpersand().deserialize(text);
+        }
+
+        // Viewers whose placeholders resolve to the same text share one Component
+        Component component = cache.get(text);
+        if (component == null) {
+            component = LegacyComponentSerializer.legacyAmpersand().deserialize(text);
+            cache.put(text, component);
+        }
+        return component;
+    }
+
+    /**
+     * Render a template to legacy text for a single viewer, with placeholders resolved
+     */
+    public String renderText(AnnouncementTemplate template, TemplateContext context, Player viewer,
+                             String worldName) {
+        StringBuilder buffer = buffers.get();
+        buffer.setLength(0);
+        template.appendTo(buffer, context, worldName);
+        String text = buffer.toString();
+
+        // Parse placeholders for the viewer if the line (or the message) may contain any
+        if (placeholderAPIEnabled && viewer != null && isPersonalized(template, context)) {
+            long start = System.nanoTime();
+            text = placeholders.apply(viewer, text);
+            placeholderNanos.get()[0] += System.nanoTime() - start;
+        }
+        return text;
+    }
+
+    /**
+     * Record the PlaceholderAPI time of the batch just rendered on this thread as one sample
+     * Called once per batch, so render threads don't all contend on the histogram per line
+     */
+    public void recordPlaceholderTime() {
+        long[] nanos = placeholderNanos.get();
+        if (nanos[0] > 0) {
+            metrics.recordNanos(AnnouncementMetrics.Stage.PLACEHOLDERS, nanos[0]);
+            nanos[0] = 0;
+        }
+    }
+
+    public ComponentCache getCache() {
+        return cache;
+    }
+}
@@ -0,0 +1,233 @@
+package com.eclipsestudios.announcements.template;
+
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.serializer.legacy.LegacyComponentSerializer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * A configured format string tokenized once into literal segments,
+ * built-in variables (%message%, %player%, %world%, %count%) and PlaceholderAPI tokens
+ * Each config option only replaces the variables it documents, the others stay in the text as typed
+ */
+public final class AnnouncementTemplate {
+
+    /**
+     * Built-in variables a template can replace
+     */
+    public enum Variable {
+        // The announcement text
+        MESSAGE,
+        // Name of the sender
+        PLAYER,
+        // The receiving player's world
+        WORLD,
+        // Number of recipients
+        COUNT
+    }
+
+    private static final AnnouncementTemplate EMPTY = new AnnouncementTemplate("", new Segment[0], Set.of(), false, false);
+
+    private final String source;
+    private final Segment[] segments;
+    private final Set<String> placeholderIdentifiers;
+    private final boolean usesMessage;
+    private final boolean usesWorld;
+    private final Component literalComponent;
+
+    private AnnouncementTemplate(String source, Segment[] segments, Set<String> placeholderIdentifiers,
+                                 boolean usesMessage, boolean usesWorld) {
+        this.source = source;
+        this.segments = segments;
+        this.placeholderIdentifiers = placeholderIdentifiers;
+        this.usesMessage = usesMessage;
+        this.usesWorld = usesWorld;
+
+        // Templates without any tokens are converted to a Component right away
+        this.literalComponent = isLiteral()
+            ? (source.isEmpty() ? Component.empty() : LegacyComponentSerializer.legacyAmpersand().deserialize(source))
+            : null;
+    }
+
+    /**
+     * Tokenize a format string
+     * @param variables Built-in variables replaced in this format, PlaceholderAPI tokens are always recognized
+     */
+    public static AnnouncementTemplate compile(String format, Variable... variables) {
+        if (format == null || format.isEmpty()) {
+            return EMPTY;
+        }
+        Set<Variable> allowed = EnumSet.noneOf(Variable.class);
+        Collections.addAll(allowed, variables);
+
+        List<Segment> segments = new ArrayList<>();
+        StringBuilder literal = new StringBuilder();
+        Set<String> placeholderIdentifiers = new LinkedHashSet<>();
+        boolean usesMessage = false;
+        boolean usesWorld = false;
+
+        int index = 0;
+        while (index < format.length()) {
+            int start = format.indexOf('%', index);
+            int end = start < 0 ? -1 : format.indexOf('%', start + 1);
+            if (end < 0) {
+                literal.append(format, index, format.length());
+                break;
+            }
+
+            String token = format.substring(start + 1, end);
+            Kind kind = Kind.of(token, allowed);
+            if (kind == null) {
+                // Not a token (e.g. "50% off"), keep the first % and rescan from the second
+                literal.append(format, index, end);
+                index = end;
+                continue;
+            }
+
+            literal.append(format, index, start);
+            if (kind == Kind.PLACEHOLDER) {
+                // PlaceholderAPI tokens stay in the rendered text and are resolved afterwards
+                literal.append(format, start, end + 1);
+                placeholderIdentifiers.add(token.substring(0, token.indexOf('_')).toLowerCase(Locale.ROOT));
+            } else {
+                if (literal.length() > 0) {
+                    segments.add(new Segment(Kind.LITERAL, literal.toString()));
+                    literal.setLength(0);
+                }
+                segments.add(new Segment(kind, null));
+                usesMessage |= kind == Kind.MESSAGE;
+                usesWorld |= kind == Kind.WORLD;
+            }
+            index = end + 1;
+        }
+
+        if (literal.length() > 0) {
+            segments.add(new Segment(Kind.LITERAL, literal.toString()));
+        }
+
+        return new AnnouncementTemplate(format, segments.toArray(new Segment[0]), Set.copyOf(placeholderIdentifiers),
+            usesMessage, usesWorld);
+    }
+
+    /**
+     * Append the rendered text for a viewer to the buffer
+     * PlaceholderAPI tokens are left untouched
+     * @param worldName The viewer's world, captured on the thread that owns the player (null if none)
+     */
+    public void appendTo(StringBuilder buffer, TemplateContext context, String worldName) {
+        for (Segment segment : segments) {
+            switch (segment.kind) {
+                case LITERAL -> buffer.append(segment.text);
+                case MESSAGE -> buffer.append(context.message());
+                case PLAYER -> buffer.append(context.senderName());
+                case WORLD -> buffer.append(worldName != null ? worldName : "");
+                case COUNT -> buffer.append(context.count());
+                default -> {
+                }
+            }
+        }
+    }
+
+    /**
+     * Render the template to a String (used for non-Component outputs like Discord)
+     */
+    public String render(TemplateContext context) {
+        if (segments.length == 1 && segments[0].kind == Kind.LITERAL) {
+            return segments[0].text;
+        }
+        StringBuilder buffer = new StringBuilder(source.length() + 32);
+        appendTo(buffer, context, null);
+        return buffer.toString();
+    }
+
+    /**
+     * True if the template contains no tokens at all
+     */
+    public boolean isLiteral() {
+        return placeholderIdentifiers.isEmpty() && (segments.length == 0 || (segments.length == 1 && segments[0].kind == Kind.LITERAL));
+    }
+
+    /**
+     * Pre-converted Component, only available for literal templates
+     */
+    public Component literalComponent() {
+        return literalComponent;
+    }
+
+    /**
+     * True if the template contains PlaceholderAPI tokens
+     */
+    public boolean hasPlaceholders() {
+        return !placeholderIdentifiers.isEmpty();
+    }
+
+    /**
+     * Lower-cased PlaceholderAPI expansion identifiers used by the template (e.g. "vault")
+     */
+    public Set<String> placeholderIdentifiers() {
+        return placeholderIdentifiers;
+    }
+
+    /**
+     * True if the template uses %message%
+     */
+    public boolean usesMessage() {
+        return usesMessage;
+    }
+
+    /**
+     * True if the template uses %world% (the viewer's world)
+     */
+    public boolean usesWorld() {
+        return usesWorld;
+    }
+
+    public boolean isEmpty() {
+        return source.isEmpty();
+    }
+
+    public String source() {
+        return source;
+    }
+
+    private enum Kind {
+        LITERAL, MESSAGE, PLAYER, WORLD, COUNT, PLACEHOLDER;
+
+        /**
+         * Classify the text between two % signs, null if it isn't a token
+         * Built-in variables that aren't allowed are not tokens, they stay in the text unchanged
+         */
+        static Kind of(String token, Set<Variable> allowed) {
+            Variable variable = switch (token) {
+                case "message" -> Variable.MESSAGE;
+                case "player" -> Variable.PLAYER;
+                case "world" -> Variable.WORLD;
+                case "count" -> Variable.COUNT;
+                default -> null;
+            };
+            if (variable != null) {
+                return allowed.contains(variable) ? Kind.valueOf(variable.name()) : null;
+            }
+
+            // PlaceholderAPI tokens are identifier_params without whitespace
+            if (token.isEmpty() || token.indexOf('_') <= 0) {
+                return null;
+            }
+            for (int i = 0; i < token.length(); i++) {
+                if (Character.isWhitespace(token.charAt(i))) {
+                    return null;
+                }
+            }
+            return PLACEHOLDER;
+        }
+    }
+
+    private record Segment(Kind kind, String text) {
+    }
+}
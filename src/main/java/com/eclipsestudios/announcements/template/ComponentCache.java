@@ -0,0 +1,136 @@
+package com.eclipsestudios.announcements.template;
+
+import net.kyori.adventure.text.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded LRU cache from resolved legacy text to its deserialized Component
+ * Players whose placeholders resolve to the same text share one Component
+ * Split into independently locked stripes by text hash, so render threads rarely wait on each other,
+ * each stripe evicts its own least recently used entries
+ */
+public final class ComponentCache {
+
+    private static final int STRIPES = 16;
+
+    private final Stripe[] stripes = new Stripe[STRIPES];
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    private volatile int maxSize;
+
+    public ComponentCache(int maxSize) {
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe();
+        }
+        resize(maxSize);
+    }
+
+    /**
+     * Get the cached Component for the text, or null on a miss
+     */
+    public Component get(String text) {
+        Stripe stripe = stripe(text);
+        Component component;
+        synchronized (stripe) {
+            component = stripe.get(text);
+        }
+        if (component != null) {
+            hits.increment();
+        } else {
+            misses.increment();
+        }
+        return component;
+    }
+
+    public void put(String text, Component component) {
+        Stripe stripe = stripe(text);
+        synchronized (stripe) {
+            stripe.put(text, component);
+        }
+    }
+
+    /**
+     * Change the size bound, evicting least recently used entries if needed
+     */
+    public void resize(int newMaxSize) {
+        maxSize = Math.max(1, newMaxSize);
+        // Round up, so small caches still hold at least one entry per stripe
+        int stripeSize = (maxSize + STRIPES - 1) / STRIPES;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                stripe.maxSize = stripeSize;
+                var iterator = stripe.entrySet().iterator();
+                while (stripe.size() > stripeSize && iterator.hasNext()) {
+                    iterator.next();
+                    iterator.remove();
+                    evictions.increment();
+                }
+            }
+        }
+    }
+
+    public void clear() {
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                stripe.clear();
+            }
+        }
+    }
+
+    public int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                size += stripe.size();
+            }
+        }
+        return size;
+    }
+
+    public int maxSize() {
+        return maxSize;
+    }
+
+    public long hits() {
+        return hits.sum();
+    }
+
+    public long misses() {
+        return misses.sum();
+    }
+
+    public long evictions() {
+        return evictions.sum();
+    }
+
+    private Stripe stripe(String text) {
+        int hash = text.hashCode();
+        return stripes[(hash ^ (hash >>> 16)) & (STRIPES - 1)];
+    }
+
+    /**
+     * One access-ordered LRU segment, guarded by its own monitor
+     */
+    private final class Stripe extends LinkedHashMap<String, Component> {
+
+        private int maxSize = 1;
+
+        Stripe() {
+            super(16, 0.75f, true);
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Component> eldest) {
+            if (size() > maxSize) {
+                evictions.increment();
+                return true;
+            }
+            return false;
+        }
+    }
+}
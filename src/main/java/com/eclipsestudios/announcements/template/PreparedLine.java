@@ -0,0 +1,65 @@
+package com.eclipsestudios.announcements.template;
+
+import net.kyori.adventure.text.Component;
+import org.bukkit.entity.Player;
+
+/**
+ * A template prepared for one announcement
+ * Player-independent lines hold a single Component shared by every recipient,
+ * personalized lines are rendered per viewer
+ */
+public final class PreparedLine {
+
+    private final Component shared;
+    private final AnnouncementRenderer renderer;
+    private final AnnouncementTemplate template;
+    private final TemplateContext context;
+
+    private PreparedLine(Component shared, AnnouncementRenderer renderer,
+                         AnnouncementTemplate template, TemplateContext context) {
+        this.shared = shared;
+        this.renderer = renderer;
+        this.template = template;
+        this.context = context;
+    }
+
+    static PreparedLine shared(AnnouncementTemplate template, Component component) {
+        return new PreparedLine(component, null, template, null);
+    }
+
+    static PreparedLine personalized(AnnouncementRenderer renderer, AnnouncementTemplate template, TemplateContext context) {
+        return new PreparedLine(null, renderer, template, context);
+    }
+
+    /**
+     * True if every recipient sees the same Component
+     */
+    public boolean isShared() {
+        return shared != null;
+    }
+
+    /**
+     * The shared Component, null for personalized lines
+     */
+    public Component shared() {
+        return shared;
+    }
+
+    /**
+     * The template this line was prepared from
+     */
+    public AnnouncementTemplate template() {
+        return template;
+    }
+
+    /**
+     * Component for a single viewer (the shared instance when player-independent)
+     * @param worldName The viewer's world for %world%
+     */
+    public Component forViewer(Player viewer, String worldName) {
+        if (shared != null) {
+            return shared;
+        }
+        return renderer.render(template, context, viewer, worldName);
+    }
+}
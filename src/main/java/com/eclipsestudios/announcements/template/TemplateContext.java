@@ -0,0 +1,14 @@
+package com.eclipsestudios.announcements.template;
+
+/**
+ * Per-announcement values for the built-in template variables
+ */
+public record TemplateContext(String message, String senderName, int count) {
+
+    /**
+     * True if the announcement text itself may contain PlaceholderAPI tokens
+     */
+    public boolean messageHasPlaceholders() {
+        return message.indexOf('%') >= 0;
+    }
+}
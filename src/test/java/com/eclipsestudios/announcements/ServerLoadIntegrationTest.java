@@ -0,0 +1,316 @@
+package com.eclipsestudios.announcements;
+
+import com.eclipsestudios.announcements.config.ConfigLoader;
+import com.eclipsestudios.announcements.discord.DiscordCommandHandler;
+import com.eclipsestudios.announcements.metrics.AnnouncementMetrics;
+import com.eclipsestudios.announcements.metrics.LatencyHistogram;
+import github.scarsz.discordsrv.dependencies.jda.api.entities.ChannelType;
+import github.scarsz.discordsrv.dependencies.jda.api.entities.Member;
+import github.scarsz.discordsrv.dependencies.jda.api.entities.Message;
+import github.scarsz.discordsrv.dependencies.jda.api.entities.User;
+import github.scarsz.discordsrv.dependencies.jda.api.events.interaction.SlashCommandEvent;
+import github.scarsz.discordsrv.dependencies.jda.api.events.message.MessageReceivedEvent;
+import github.scarsz.discordsrv.dependencies.jda.api.interactions.InteractionHook;
+import github.scarsz.discordsrv.dependencies.jda.api.interactions.commands.OptionMapping;
+import github.scarsz.discordsrv.dependencies.jda.api.requests.restaction.MessageAction;
+import github.scarsz.discordsrv.dependencies.jda.api.requests.restaction.WebhookMessageUpdateAction;
+import github.scarsz.discordsrv.dependencies.jda.api.requests.restaction.interactions.ReplyAction;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.scheduler.BukkitTask;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.mockbukkit.mockbukkit.MockBukkit;
+import org.mockbukkit.mockbukkit.ServerMock;
+import org.mockbukkit.mockbukkit.entity.PlayerMock;
+
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Boots the plugin on MockBukkit with thousands of players over several worlds and fires a burst of
+ * /ea, /ea @w and Discord announcements through the real command handlers and the Discord command queue
+ * Checks packets per player and that no bars or tasks are left once the bars expire
+ * Tick time and retained heap depend on the machine, their budgets are only checked by ./gradlew loadTest
+ */
+class ServerLoadIntegrationTest {
+
+    private static final int PLAYERS = 2000;
+    private static final int WORLDS = 4;
+    private static final int DISCORD_COMMANDS = 4;
+    private static final int BOSSBAR_SECONDS = 2;
+    // Long enough for every boss bar, queued ones included, to expire
+    private static final int SETTLE_TICKS = BOSSBAR_SECONDS * 20 * 4;
+    // Budgets for the load tag only, a busy machine can exceed them
+    private static final long TICK_BUDGET_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+    // Gross leaks only (rendered payloads, tasks holding players), leaked bars are caught by activeCount
+    private static final long RETAINED_BYTES_PER_PLAYER = 1024;
+
+    private ServerMock server;
+    private EclipseStudiosAnnouncements plugin;
+    private DiscordCommandHandler discord;
+    private final List<World> worlds = new ArrayList<>();
+    private final List<PlayerMock> players = new ArrayList<>();
+    private final Queue<String> discordReplies = new ConcurrentLinkedQueue<>();
+    private long discordUserIds = 1_000_000_000_000_000L;
+
+    @BeforeEach
+    void setUp() {
+        server = MockBukkit.mock();
+        for (int i = 0; i < WORLDS; i++) {
+            worlds.add(server.addSimpleWorld("world_" + i));
+        }
+        plugin = MockBukkit.load(EclipseStudiosAnnouncements.class);
+
+        configure();
+        for (int i = 0; i < PLAYERS; i++) {
+            PlayerMock player = server.addPlayer();
+            player.teleport(new Location(worlds.get(i % WORLDS), 0, 64, 0));
+            players.add(player);
+        }
+
+        // DiscordSRV isn't installed here, the handler gets the events JDA would deliver
+        discord = new DiscordCommandHandler(plugin);
+    }
+
+    @AfterEach
+    void tearDown() {
+        MockBukkit.unmock();
+    }
+
+    @Test
+    void burstReachesEveryoneAndReleasesEverything() {
+        warmUp();
+        AnnouncementMetrics metrics = plugin.getMetrics();
+
+        int announcements = runBurst(new LatencyHistogram());
+        settle(new LatencyHistogram());
+
+        // Every announcement reached the server, the Discord ones through the command queue
+        assertEquals(announcements, metrics.getAnnouncements());
+        assertEquals(DISCORD_COMMANDS, discordReplies.stream().filter(reply -> reply.startsWith("✅")).count(),
+            "Discord confirmations: " + discordReplies);
+
+        // Title, boss bar and one packet per chat line, nothing sent twice
+        int chatLines = plugin.getSettings().chat().lines().size();
+        double packetsPerRecipient = (double) metrics.getPacketsSent() / metrics.getRecipients();
+        assertTrue(packetsPerRecipient <= 2 + chatLines, "Packets per recipient: " + packetsPerRecipient);
+
+        // Expired bars and finished tickers leave nothing behind
+        assertEquals(0, plugin.getBossBarManager().activeCount(), "Players still holding boss bars");
+        assertEquals(List.of(), pendingPluginTasks(), "Tasks still scheduled");
+    }
+
+    @Test
+    @Tag("load")
+    void burstStaysWithinTickAndHeapBudget() {
+        warmUp();
+        long baselineHeap = usedHeapAfterGc();
+
+        LatencyHistogram tickTimes = new LatencyHistogram();
+        runBurst(tickTimes);
+        settle(tickTimes);
+
+        // Main-thread time of every tick, command handling included
+        assertTrue(tickTimes.maxNanos() <= TICK_BUDGET_NANOS,
+            "Slowest tick took " + tickTimes.maxNanos() / 1_000_000.0 + " ms");
+        drainMessages();
+        long retained = usedHeapAfterGc() - baselineHeap;
+        assertTrue(retained <= RETAINED_BYTES_PER_PLAYER * PLAYERS,
+            "Heap retained after the burst: " + retained / 1024 + " KiB");
+    }
+
+    /**
+     * Run one burst to load classes and warm the JIT, then reset so the next burst is measured from a settled state
+     */
+    private void warmUp() {
+        runBurst(new LatencyHistogram());
+        settle(new LatencyHistogram());
+        drainMessages();
+        plugin.getMetrics().reset();
+        discordReplies.clear();
+    }
+
+    private List<BukkitTask> pendingPluginTasks() {
+        return server.getScheduler().getPendingTasks().stream()
+            .filter(task -> task.getOwner() == plugin && !task.isCancelled())
+            .toList();
+    }
+
+    /**
+     * /ea to everyone and /ea @w in one tick, Discord slash and prefix commands from a JDA thread,
+     * then a run of announcements that queue behind bars still showing
+     * @return Announcements sent
+     */
+    private int runBurst(LatencyHistogram tickTimes) {
+        int announcements = 0;
+        for (int tick = 0; tick < 60; tick++) {
+            long start = System.nanoTime();
+            switch (tick) {
+                case 0 -> {
+                    console("ea @a Server restart in 5 minutes!");
+                    console("ea @w " + worlds.get(0).getName() + " Event starting in spawn!");
+                    announcements += 2;
+                }
+                case 1 -> {
+                    // Arrives on a JDA thread, the queue hands it to the main thread on a later tick
+                    onJdaThread(() -> {
+                        discord.onSlashCommand(slashCommand("Posted with /announce"));
+                        discord.onSlashCommand(slashCommand("Another slash announcement"));
+                        discord.onMessageReceived(prefixCommand("Posted with !announce"));
+                        discord.onMessageReceived(prefixCommand(worlds.get(1).getName() + " World from Discord"));
+                    });
+                    announcements += DISCORD_COMMANDS;
+                }
+                case 20 -> {
+                    for (int i = 0; i < 3; i++) {
+                        console("ea @a Reminder " + i);
+                    }
+                    announcements += 3;
+                }
+                default -> {
+                }
+            }
+            server.getScheduler().performOneTick();
+            tickTimes.record(System.nanoTime() - start);
+        }
+        return announcements;
+    }
+
+    private void settle(LatencyHistogram tickTimes) {
+        for (int tick = 0; tick < SETTLE_TICKS; tick++) {
+            long start = System.nanoTime();
+            server.getScheduler().performOneTick();
+            tickTimes.record(System.nanoTime() - start);
+        }
+    }
+
+    private void console(String command) {
+        assertTrue(server.dispatchCommand(server.getConsoleSender(), command), command);
+    }
+
+    private static void onJdaThread(Runnable events) {
+        CompletableFuture.runAsync(events).join();
+    }
+
+    /**
+     * Boss bars that expire quickly, stacked so repeated announcements queue, plus Discord commands
+     * open to everyone without a per-user cooldown
+     */
+    private void configure() {
+        File dataFolder = plugin.getDataFolder();
+        try {
+            YamlConfiguration config = YamlConfiguration.loadConfiguration(new File(dataFolder, ConfigLoader.CONFIG_FILE));
+            config.set("bossbar.enabled", true);
+            config.set("bossbar.animation.duration", BOSSBAR_SECONDS);
+            config.set("bossbar.stacking.max-visible", 1);
+            config.set("bossbar.stacking.max-queued", 2);
+            config.set("sound.enabled", false);
+            config.set("per-world.enabled", true);
+            config.save(new File(dataFolder, ConfigLoader.CONFIG_FILE));
+
+            YamlConfiguration discordConfig = YamlConfiguration.loadConfiguration(
+                new File(dataFolder, ConfigLoader.DISCORD_FILE));
+            discordConfig.set("discord.enabled", false);
+            discordConfig.set("discord-commands.permissions.admin-only", false);
+            discordConfig.set("discord-commands.queue.user-cooldown-seconds", 0);
+            discordConfig.save(new File(dataFolder, ConfigLoader.DISCORD_FILE));
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+
+        // Files are read off the main thread
+        CompletableFuture<?> reload = plugin.reloadConfigs();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!reload.isDone() && System.nanoTime() < deadline) {
+            server.getScheduler().performOneTick();
+        }
+        reload.join();
+        assertTrue(plugin.getSettings().bossBar().enabled());
+    }
+
+    @SuppressWarnings("unchecked")
+    private SlashCommandEvent slashCommand(String text) {
+        SlashCommandEvent event = mock(SlashCommandEvent.class);
+        when(event.getName()).thenReturn("announce");
+        when(event.getMember()).thenReturn(mock(Member.class));
+        User user = mock(User.class);
+        when(user.getIdLong()).thenReturn(discordUserIds++);
+        when(event.getUser()).thenReturn(user);
+        OptionMapping message = mock(OptionMapping.class);
+        when(message.getAsString()).thenReturn(text);
+        when(event.getOption("message")).thenReturn(message);
+
+        InteractionHook hook = mock(InteractionHook.class);
+        when(hook.editOriginal(anyString())).thenAnswer(invocation -> {
+            discordReplies.add(invocation.getArgument(0));
+            return mock(WebhookMessageUpdateAction.class);
+        });
+        ReplyAction deferred = mock(ReplyAction.class);
+        when(event.deferReply()).thenReturn(deferred);
+        when(deferred.setEphemeral(anyBoolean())).thenReturn(deferred);
+        doAnswer(invocation -> {
+            ((Consumer<InteractionHook>) invocation.getArgument(0)).accept(hook);
+            return null;
+        }).when(deferred).queue(any());
+        return event;
+    }
+
+    private MessageReceivedEvent prefixCommand(String arguments) {
+        MessageReceivedEvent event = mock(MessageReceivedEvent.class, RETURNS_DEEP_STUBS);
+        when(event.getAuthor().isBot()).thenReturn(false);
+        when(event.getAuthor().getIdLong()).thenReturn(discordUserIds++);
+        when(event.isFromGuild()).thenReturn(true);
+        when(event.getChannelType()).thenReturn(ChannelType.TEXT);
+        when(event.getMember()).thenReturn(mock(Member.class));
+
+        Message message = mock(Message.class);
+        when(message.getContentRaw()).thenReturn("!announce " + arguments);
+        when(message.reply(any(CharSequence.class))).thenAnswer(invocation -> {
+            discordReplies.add(invocation.getArgument(0).toString());
+            return mock(MessageAction.class);
+        });
+        when(event.getMessage()).thenReturn(message);
+        return event;
+    }
+
+    /**
+     * MockBukkit records every chat message a player receives, drop them so they don't count as retained
+     */
+    private void drainMessages() {
+        for (PlayerMock player : players) {
+            while (player.nextComponentMessage() != null) {
+                // Drained
+            }
+        }
+    }
+
+    private static long usedHeapAfterGc() {
+        long used = Long.MAX_VALUE;
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+            used = Math.min(used, ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed());
+        }
+        return used;
+    }
+}
@@ -0,0 +1,199 @@
+package com.eclipsestudios.announcements.bossbar;
+
+import com.eclipsestudios.announcements.config.PluginSettings;
+import com.eclipsestudios.announcements.scheduler.TaskHandle;
+import com.eclipsestudios.announcements.scheduler.TaskScheduler;
+import com.eclipsestudios.announcements.template.AnnouncementTemplate;
+import net.kyori.adventure.bossbar.BossBar;
+import net.kyori.adventure.text.Component;
+import org.bukkit.entity.Player;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BossBarManagerTest {
+
+    private static final int DURATION_SECONDS = 2;
+    private static final int DURATION_TICKS = DURATION_SECONDS * 20;
+
+    @Test
+    void queuedBarGetsFullDurationOnceShown() {
+        ManualScheduler scheduler = new ManualScheduler();
+        BossBarManager manager = new BossBarManager(scheduler, () -> 0.0);
+        PluginSettings.BossBarSettings settings = settings(1, 1);
+        Set<BossBar> shown = new LinkedHashSet<>();
+        Player player = player(shown);
+
+        manager.sendBossBar(settings, player, Component.text("first"));
+        scheduler.tick(10);
+        // Sent while the first bar is still up: waits for the only slot
+        manager.sendBossBar(settings, player, Component.text("second"));
+        assertEquals(1, shown.size());
+        BossBar first = shown.iterator().next();
+
+        int ticks = 0;
+        while (shown.contains(first)) {
+            scheduler.tick(1);
+            assertTrue(++ticks <= DURATION_TICKS, "first bar never expired");
+        }
+        assertEquals(1, shown.size(), "second bar wasn't shown when the first expired");
+        BossBar second = shown.iterator().next();
+
+        // Counted from when it became visible, not from when it was sent
+        int visibleTicks = 0;
+        while (shown.contains(second)) {
+            visibleTicks++;
+            scheduler.tick(1);
+            assertTrue(visibleTicks <= DURATION_TICKS * 2, "second bar never expired");
+        }
+        assertEquals(DURATION_TICKS, visibleTicks);
+        assertEquals(0, manager.activeCount());
+    }
+
+    @Test
+    void fullQueueDropsOldestWaitingAnnouncement() {
+        ManualScheduler scheduler = new ManualScheduler();
+        BossBarManager manager = new BossBarManager(scheduler, () -> 0.0);
+        PluginSettings.BossBarSettings settings = settings(1, 1);
+        Set<BossBar> shown = new LinkedHashSet<>();
+        Player player = player(shown);
+
+        manager.sendBossBar(settings, player, Component.text("first"));
+        manager.sendBossBar(settings, player, Component.text("second"));
+        manager.sendBossBar(settings, player, Component.text("third"));
+
+        List<Component> titles = new ArrayList<>();
+        for (int tick = 0; tick < DURATION_TICKS * 3 && manager.activeCount() > 0; tick++) {
+            for (BossBar bar : shown) {
+                if (!titles.contains(bar.name())) {
+                    titles.add(bar.name());
+                }
+            }
+            scheduler.tick(1);
+        }
+        assertEquals(List.of(Component.text("first"), Component.text("third")), titles);
+    }
+
+    private static PluginSettings.BossBarSettings settings(int maxVisible, int maxQueued) {
+        return new PluginSettings.BossBarSettings(
+            true,
+            AnnouncementTemplate.compile("%message%", AnnouncementTemplate.Variable.MESSAGE),
+            BossBar.Color.YELLOW,
+            BossBar.Overlay.PROGRESS,
+            false,
+            BossBarAnimation.builtIn("FILL", DURATION_TICKS, DURATION_SECONDS),
+            DURATION_SECONDS,
+            1,
+            maxVisible,
+            maxQueued,
+            new PluginSettings.AdaptiveAnimationSettings(false, 50.0, 1)
+        );
+    }
+
+    /**
+     * An online player that records which boss bars it currently sees
+     */
+    private static Player player(Set<BossBar> shown) {
+        UUID id = UUID.randomUUID();
+        return (Player) Proxy.newProxyInstance(BossBarManagerTest.class.getClassLoader(), new Class<?>[]{Player.class},
+            (proxy, method, args) -> switch (method.getName()) {
+                case "getUniqueId" -> id;
+                case "isOnline" -> true;
+                case "showBossBar" -> {
+                    shown.add((BossBar) args[0]);
+                    yield null;
+                }
+                case "hideBossBar" -> {
+                    shown.remove((BossBar) args[0]);
+                    yield null;
+                }
+                case "equals" -> proxy == args[0];
+                case "hashCode" -> System.identityHashCode(proxy);
+                case "toString" -> "TestPlayer";
+                default -> throw new UnsupportedOperationException(method.getName());
+            });
+    }
+
+    /**
+     * Main-thread scheduler driven by the test, one call to tick() is one server tick
+     */
+    private static final class ManualScheduler implements TaskScheduler {
+
+        private final List<Timer> timers = new ArrayList<>();
+
+        void tick(int ticks) {
+            for (int i = 0; i < ticks; i++) {
+                for (Timer timer : List.copyOf(timers)) {
+                    if (!timer.cancelled && --timer.untilNext == 0) {
+                        timer.untilNext = timer.periodTicks;
+                        timer.task.accept(timer);
+                    }
+                }
+                timers.removeIf(timer -> timer.cancelled);
+            }
+        }
+
+        @Override
+        public boolean isRegionThreaded() {
+            return false;
+        }
+
+        @Override
+        public void runGlobal(Runnable task) {
+            task.run();
+        }
+
+        @Override
+        public TaskHandle runGlobalLater(Runnable task, long delayTicks) {
+            return runGlobalTimer(handle -> {
+                handle.cancel();
+                task.run();
+            }, delayTicks, 1);
+        }
+
+        @Override
+        public TaskHandle runGlobalTimer(Consumer<TaskHandle> task, long delayTicks, long periodTicks) {
+            Timer timer = new Timer(task, Math.max(1, delayTicks), Math.max(1, periodTicks));
+            timers.add(timer);
+            return timer;
+        }
+
+        @Override
+        public void runForPlayer(Player player, Runnable task) {
+            task.run();
+        }
+
+        @Override
+        public void runAsync(Runnable task) {
+            task.run();
+        }
+    }
+
+    private static final class Timer implements TaskHandle {
+
+        private final Consumer<TaskHandle> task;
+        private final long periodTicks;
+        private long untilNext;
+        private boolean cancelled;
+
+        Timer(Consumer<TaskHandle> task, long delayTicks, long periodTicks) {
+            this.task = task;
+            this.untilNext = delayTicks;
+            this.periodTicks = periodTicks;
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+        }
+    }
+}